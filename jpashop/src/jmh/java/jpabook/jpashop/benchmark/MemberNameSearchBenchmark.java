@@ -0,0 +1,157 @@
+package jpabook.jpashop.benchmark;
+
+import jpabook.jpashop.JpashopApplication;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.repository.OrderRepository;
+import jpabook.jpashop.repository.OrderSearch;
+import jpabook.jpashop.repository.support.MemberNameIndex;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+//주문 검색의 회원 이름 부분 일치: like '%name%' vs 회원 이름 색인 + m.id in (...)
+//  실행: ./gradlew jmh -Pjmh.includes=MemberNameSearchBenchmark
+//  회원은 성 + 이름 2글자 조합 + 번호로 만들고, 그 중 일부 회원만 주문을 가진다.
+//  측정
+//      ms/op   : 검색어 하나로 주문 한 페이지(OrderSearch.MAX_SIZE) 조회
+//      rows    : op 당 조회한 주문 수 (두 방식이 같아야 한다. setUp 에서 확인)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MemberNameSearchBenchmark {
+
+    static final int BATCH = 10000;
+    static final long ID_BASE = 1_000_000_000L;     //시퀀스로 만든 id 와 겹치지 않게
+
+    static final String[] FAMILY = {"김", "이", "박", "최", "정", "강", "조", "윤", "장", "임"};
+    static final String[] GIVEN = {"민", "서", "준", "지", "현", "우", "도", "하", "윤", "수",
+            "예", "진", "주", "원", "영", "성", "태", "은", "재", "호"};
+
+    @Param({"1000000"})
+    public int members;
+
+    @Param({"100000"})
+    public int memberOrders;
+
+    @Param({"김민준", "서준", "준서하"})
+    public String term;
+
+    private ConfigurableApplicationContext context;
+    private EntityManager em;
+    private TransactionTemplate transactionTemplate;
+    private OrderRepository orderRepository;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class SearchCounters {
+        public long rows;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(JpashopApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:member-name-benchmark;DB_CLOSE_DELAY=-1",
+                        "spring.jpa.properties.hibernate.show_sql=false",
+                        "logging.level.root=warn",
+                        "logging.level.org.hibernate.SQL=warn",
+                        "logging.level.org.hibernate.type=warn",
+                        "decorator.datasource.p6spy.enable-logging=false")
+                .run();
+        em = context.getBean(EntityManager.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+        orderRepository = context.getBean(OrderRepository.class);
+
+        seed(context.getBean(JdbcTemplate.class));
+        context.getBean(MemberNameIndex.class).rebuild();     //JDBC 로 넣은 회원은 다시 색인해야 검색된다.
+
+        int like = transactionTemplate.execute(status -> findByLike().size());
+        int indexed = transactionTemplate.execute(status -> findByIndex().size());
+        if (like != indexed) {
+            throw new IllegalStateException("검색 결과가 다르다. like=" + like + ", index=" + indexed);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void like(SearchCounters counters, Blackhole bh) {
+        measure(counters, bh, this::findByLike);
+    }
+
+    @Benchmark
+    public void memberNameIndex(SearchCounters counters, Blackhole bh) {
+        measure(counters, bh, this::findByIndex);
+    }
+
+    private void measure(SearchCounters counters, Blackhole bh, Supplier<List<Order>> strategy) {
+        List<Order> result = transactionTemplate.execute(status -> strategy.get());
+        counters.rows += result.size();
+        bh.consume(result);
+    }
+
+    private List<Order> findByLike() {
+        return em.createQuery(
+                "select o from Order o join o.member m" +
+                        " where m.name like :name" +
+                        " order by o.id desc", Order.class)
+                .setParameter("name", "%" + term + "%")
+                .setMaxResults(OrderSearch.MAX_SIZE)
+                .getResultList();
+    }
+
+    private List<Order> findByIndex() {
+        OrderSearch orderSearch = new OrderSearch();
+        orderSearch.setMemberName(term);
+        orderSearch.setSize(OrderSearch.MAX_SIZE);
+        return orderRepository.findAllByCriteria(orderSearch);
+    }
+
+    private void seed(JdbcTemplate jdbcTemplate) {
+        Random random = new Random(42);
+        List<Object[]> memberRows = new ArrayList<>(BATCH);
+        for (int i = 0; i < members; i++) {
+            String name = FAMILY[random.nextInt(FAMILY.length)]
+                    + GIVEN[random.nextInt(GIVEN.length)]
+                    + GIVEN[random.nextInt(GIVEN.length)]
+                    + i;    //member.name 은 unique
+            memberRows.add(new Object[]{ID_BASE + i, name, "city", "street", "00000"});
+            if (memberRows.size() == BATCH || i == members - 1) {
+                jdbcTemplate.batchUpdate("insert into member (member_id, name, city, street, zipcode) values (?, ?, ?, ?, ?)", memberRows);
+                memberRows.clear();
+            }
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> deliveryRows = new ArrayList<>(BATCH);
+        List<Object[]> orderRows = new ArrayList<>(BATCH);
+        for (int i = 0; i < memberOrders; i++) {
+            long memberId = ID_BASE + random.nextInt(members);
+            deliveryRows.add(new Object[]{ID_BASE + i, "city", "street", "00000", "READY"});
+            orderRows.add(new Object[]{ID_BASE + i, memberId, ID_BASE + i, now, "ORDER"});
+            if (orderRows.size() == BATCH || i == memberOrders - 1) {
+                jdbcTemplate.batchUpdate("insert into delivery (delivery_id, city, street, zipcode, status) values (?, ?, ?, ?, ?)", deliveryRows);
+                jdbcTemplate.batchUpdate("insert into orders (order_id, member_id, delivery_id, order_date, status) values (?, ?, ?, ?, ?)", orderRows);
+                deliveryRows.clear();
+                orderRows.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package jpabook.jpashop.benchmark;
+
+import jpabook.jpashop.JpashopApplication;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Delivery;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.repository.OrderRepository;
+import jpabook.jpashop.repository.OrderSearch;
+import jpabook.jpashop.repository.order.query.OrderQueryRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+//OrderApiController V2 ~ V6 조회 전략 벤치마크
+//  실행: ./gradlew jmh  (결과: build/results/jmh/results.txt)
+//  데이터 크기: -Pjmh.orders=..., -Pjmh.itemsPerOrder=... 또는 @Param 값 수정
+//  측정
+//      ops/s                       : Throughput
+//      gc.alloc.rate.norm (B/op)   : -prof gc (build.gradle 에서 기본으로 켜둠)
+//      statements, entities        : Hibernate Statistics 로 측정한 op 당 SQL 실행 수, 로딩한 엔티티 수
+//  각 op 는 새 트랜잭션(= 새 영속성 컨텍스트)에서 실행하고, 컨트롤러처럼 DTO 변환까지 포함한다.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class OrderApiStrategyBenchmark {
+
+    @Param({"1000"})
+    public int orders;
+
+    @Param({"3"})
+    public int itemsPerOrder;
+
+    private ConfigurableApplicationContext context;
+    private TransactionTemplate transactionTemplate;
+    private OrderRepository orderRepository;
+    private OrderQueryRepository orderQueryRepository;
+    private Statistics statistics;
+
+    //op 당 SQL 실행 수 / 로딩 엔티티 수 (JMH 결과에 함께 출력)
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class QueryCounters {
+        public long statements;
+        public long entities;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(JpashopApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:order-api-benchmark;DB_CLOSE_DELAY=-1",
+                        "spring.jpa.properties.hibernate.show_sql=false",
+                        "spring.jpa.properties.hibernate.generate_statistics=true",
+                        "logging.level.root=warn",
+                        "logging.level.org.hibernate.SQL=warn",
+                        "logging.level.org.hibernate.type=warn",
+                        "decorator.datasource.p6spy.enable-logging=false")
+                .run();
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+        orderRepository = context.getBean(OrderRepository.class);
+        orderQueryRepository = context.getBean(OrderQueryRepository.class);
+        statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+        seed(context.getBean(EntityManager.class));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    //V2. 엔티티 조회 + 지연 로딩 (1+N+N+N, findAllByCriteria 는 한 페이지 최대 1000 건)
+    @Benchmark
+    public void v2_criteriaLazy(QueryCounters counters, Blackhole bh) {
+        measure(counters, bh, () -> {
+            OrderSearch orderSearch = new OrderSearch();
+            orderSearch.setSize(OrderSearch.MAX_SIZE);
+            List<Order> result = orderRepository.findAllByCriteria(orderSearch);
+            result.forEach(o -> consumeGraph(o, bh));
+            return result.size();
+        });
+    }
+
+    //V3. 컬렉션 페치 조인 + distinct
+    @Benchmark
+    public void v3_fetchJoinItems(QueryCounters counters, Blackhole bh) {
+        measure(counters, bh, () -> {
+            List<Order> result = orderRepository.findAllWithItem();
+            result.forEach(o -> consumeGraph(o, bh));
+            return result.size();
+        });
+    }
+
+    //V3.1. ToOne 페치 조인 + default_batch_fetch_size
+    @Benchmark
+    public void v31_fetchJoinBatchSize(QueryCounters counters, Blackhole bh) {
+        measure(counters, bh, () -> {
+            List<Order> result = orderRepository.findAllWithMemberDelivery(0, orders);
+            result.forEach(o -> consumeGraph(o, bh));
+            return result.size();
+        });
+    }
+
+    //V4. DTO 직접 조회, 컬렉션 N 번 조회
+    @Benchmark
+    public void v4_dtoPerOrder(QueryCounters counters, Blackhole bh) {
+        measure(counters, bh, () -> {
+            List<?> result = orderQueryRepository.findOrderQueryDTOs();
+            bh.consume(result);
+            return result.size();
+        });
+    }
+
+    //V5. DTO 직접 조회, 컬렉션 IN 절 1번
+    @Benchmark
+    public void v5_dtoInClause(QueryCounters counters, Blackhole bh) {
+        measure(counters, bh, () -> {
+            List<?> result = orderQueryRepository.findAllByDTO_optimization();
+            bh.consume(result);
+            return result.size();
+        });
+    }
+
+    //V6. 플랫 데이터 1번 조회 (메모리에서 그룹핑은 컨트롤러 몫이라 row 조회까지만 측정)
+    @Benchmark
+    public void v6_dtoFlat(QueryCounters counters, Blackhole bh) {
+        measure(counters, bh, () -> {
+            List<?> result = orderQueryRepository.findAllByDTO_flat();
+            bh.consume(result);
+            return result.size();
+        });
+    }
+
+    private void measure(QueryCounters counters, Blackhole bh, Supplier<Integer> strategy) {
+        long statementsBefore = statistics.getPrepareStatementCount();
+        long entitiesBefore = statistics.getEntityLoadCount();
+
+        bh.consume(transactionTemplate.execute(status -> strategy.get()));
+
+        counters.statements += statistics.getPrepareStatementCount() - statementsBefore;
+        counters.entities += statistics.getEntityLoadCount() - entitiesBefore;
+    }
+
+    //컨트롤러의 OrderDTO 변환과 같은 범위의 연관관계를 사용
+    private void consumeGraph(Order order, Blackhole bh) {
+        bh.consume(order.getMember().getName());
+        bh.consume(order.getDelivery().getAddress());
+        order.getOrderItems().forEach(oi -> bh.consume(oi.getItem().getName()));
+    }
+
+    private void seed(EntityManager em) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Book[] books = new Book[itemsPerOrder];
+            for (int i = 0; i < itemsPerOrder; i++) {
+                books[i] = new Book();
+                books[i].setName("BENCH BOOK" + i);
+                books[i].setPrice(10000);
+                books[i].setStockQuantity(Integer.MAX_VALUE);
+                em.persist(books[i]);
+            }
+
+            for (int i = 0; i < orders; i++) {
+                Member member = new Member();
+                member.setName("member" + i);
+                member.setAddress(new Address("city" + i, "street", "00000"));
+                em.persist(member);
+
+                Delivery delivery = new Delivery();
+                delivery.setAddress(member.getAddress());
+                OrderItem[] orderItems = new OrderItem[itemsPerOrder];
+                for (int j = 0; j < itemsPerOrder; j++) {
+                    orderItems[j] = OrderItem.createOrderItem(books[j], 10000, 1);
+                }
+                em.persist(Order.createOrder(member, delivery, orderItems));
+            }
+        });
+    }
+}
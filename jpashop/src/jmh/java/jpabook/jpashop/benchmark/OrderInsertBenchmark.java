@@ -0,0 +1,139 @@
+package jpabook.jpashop.benchmark;
+
+import jpabook.jpashop.JpashopApplication;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Delivery;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.monitoring.SqlStatementListener;
+import jpabook.jpashop.monitoring.SqlStatistics;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.concurrent.TimeUnit;
+
+//InitDb 방식(em.persist) 주문 등록 처리량
+//  실행: ./gradlew jmh -Pjmh.includes=OrderInsertBenchmark
+//  allocation size 비교: @Param allocationSize = 1 (insert 마다 시퀀스 호출) vs 50 (기본)
+//  op 1번 = 트랜잭션 1개에서 주문 ordersPerOp 건 등록, 주문 1건 = 회원 + 배송 + 주문 + 주문상품 2건 (row 5개)
+//  측정
+//      ops/s                       : 트랜잭션 처리량
+//      orders, rows                : 초당 등록한 주문 수, row 수
+//      sequence                    : 초당 시퀀스 호출 수 (next value for ...)
+//      statements                  : 초당 DB 로 보낸 SQL 수 (JDBC batch 는 executeBatch 1번을 1번으로 센다)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class OrderInsertBenchmark {
+
+    static final int FLUSH_SIZE = 500;          //영속성 컨텍스트가 커지지 않게 주기적으로 flush + clear
+    static final int ROWS_PER_ORDER = 5;
+
+    @Param({"1", "50"})
+    public int allocationSize;
+
+    @Param({"10000"})
+    public int ordersPerOp;
+
+    private ConfigurableApplicationContext context;
+    private TransactionTemplate transactionTemplate;
+    private EntityManager em;
+    private SqlStatementListener sqlStatementListener;
+    private Long[] bookIds;
+    private int sequence;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class InsertCounters {
+        public long orders;
+        public long rows;
+        public long sequence;
+        public long statements;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(JpashopApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:order-insert-benchmark-" + allocationSize + ";DB_CLOSE_DELAY=-1",
+                        "spring.jpa.properties.hibernate.show_sql=false",
+                        "spring.jpa.properties.hibernate.jdbc.batch_size=100",
+                        "spring.jpa.properties.hibernate.order_inserts=true",
+                        "spring.jpa.properties.jpashop.id.allocation-size=" + allocationSize,
+                        "logging.level.root=warn",
+                        "logging.level.org.hibernate.SQL=warn",
+                        "logging.level.org.hibernate.type=warn",
+                        "decorator.datasource.p6spy.enable-logging=false")
+                .run();
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+        em = context.getBean(EntityManager.class);
+        sqlStatementListener = context.getBean(SqlStatementListener.class);
+        bookIds = transactionTemplate.execute(status -> new Long[]{
+                createBook("SPRING1 BOOK", 20000).getId(),
+                createBook("SPRING2 BOOK", 40000).getId()});
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void insertOrders(InsertCounters counters) {
+        int from = sequence;
+        sequence += ordersPerOp;
+
+        try (SqlStatistics statistics = sqlStatementListener.open()) {
+            transactionTemplate.executeWithoutResult(status -> insertOrders(from, from + ordersPerOp));
+
+            counters.orders += ordersPerOp;
+            counters.rows += (long) ordersPerOp * ROWS_PER_ORDER;
+            counters.sequence += statistics.getShapes().entrySet().stream()
+                    .filter(e -> e.getKey().toLowerCase().contains("next value for") || e.getKey().toLowerCase().contains("nextval"))
+                    .mapToLong(e -> e.getValue())
+                    .sum();
+            counters.statements += statistics.getStatements();
+        }
+    }
+
+    private void insertOrders(int from, int to) {
+        Book book1 = em.find(Book.class, bookIds[0]);
+        Book book2 = em.find(Book.class, bookIds[1]);
+        for (int i = from; i < to; i++) {
+            Member member = new Member();
+            member.setName("user" + i);     //member.name 은 unique -> op 마다 이어지는 번호 사용
+            member.setAddress(new Address("서울", String.valueOf(i), "1111"));
+            em.persist(member);
+
+            Delivery delivery = new Delivery();
+            delivery.setAddress(member.getAddress());
+
+            OrderItem orderItem1 = OrderItem.createOrderItem(book1, 20000, 1);
+            OrderItem orderItem2 = OrderItem.createOrderItem(book2, 40000, 1);
+            em.persist(Order.createOrder(member, delivery, orderItem1, orderItem2));
+
+            if ((i - from + 1) % FLUSH_SIZE == 0) {
+                em.flush();
+                em.clear();
+                book1 = em.find(Book.class, bookIds[0]);
+                book2 = em.find(Book.class, bookIds[1]);
+            }
+        }
+    }
+
+    private Book createBook(String name, int price) {
+        Book book = new Book();
+        book.setName(name);
+        book.setPrice(price);
+        book.setStockQuantity(Integer.MAX_VALUE);
+        em.persist(book);
+        return book;
+    }
+}
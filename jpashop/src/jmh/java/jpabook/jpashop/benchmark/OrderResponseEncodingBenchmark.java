@@ -0,0 +1,115 @@
+package jpabook.jpashop.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import jpabook.jpashop.api.ColumnarOrderResponse;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.repository.order.query.OrderItemQueryDTO;
+import jpabook.jpashop.repository.order.query.OrderQueryDTO;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+//주문 목록 응답 인코딩 벤치마크 (기본 JSON vs 컬럼 JSON vs 컬럼 Smile)
+//  실행: ./gradlew jmh -Pjmh.includes=OrderResponseEncodingBenchmark  (데이터 크기: -Pjmh.orders=..., -Pjmh.itemsPerOrder=...)
+//  측정
+//      ops/s                       : 직렬화 처리량 (컬럼 형식은 변환 비용 포함)
+//      gc.alloc.rate.norm (B/op)   : -prof gc
+//      bytes                       : op 당 응답 크기
+//  DB 없이 DTO 를 직접 만든다. 회원/주소/상품 이름은 실제 데이터처럼 일부만 반복되도록 members, items 개로 제한
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class OrderResponseEncodingBenchmark {
+
+    @Param({"1000"})
+    public int orders;
+
+    @Param({"3"})
+    public int itemsPerOrder;
+
+    private List<OrderQueryDTO> result;
+    private ObjectMapper json;
+    private ObjectMapper smile;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class PayloadCounters {
+        public long bytes;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        //스프링 부트와 같은 설정 (WebConfig 의 Smile 컨버터 포함)
+        json = Jackson2ObjectMapperBuilder.json().build();
+        SmileFactory smileFactory = new SmileFactory();
+        smileFactory.enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES);
+        smile = Jackson2ObjectMapperBuilder.json().factory(smileFactory).build();
+
+        SplittableRandom random = new SplittableRandom(42);
+        int members = Math.max(1, orders / 10);
+        int items = 200;
+        OrderStatus[] statuses = OrderStatus.values();
+        LocalDateTime start = LocalDateTime.of(2022, 1, 1, 0, 0);
+
+        result = new ArrayList<>(orders);
+        for (int i = 0; i < orders; i++) {
+            int member = random.nextInt(members);
+            OrderQueryDTO order = new OrderQueryDTO((long) i + 1, "member" + member, start.plusMinutes(i),
+                    statuses[random.nextInt(statuses.length)], new Address("city" + member % 50, "street" + member, "0" + (10000 + member)));
+            List<OrderItemQueryDTO> orderItems = new ArrayList<>(itemsPerOrder);
+            for (int j = 0; j < itemsPerOrder; j++) {
+                orderItems.add(new OrderItemQueryDTO(order.getOrderId(), "BENCH BOOK" + random.nextInt(items),
+                        10000 + random.nextInt(100) * 100, 1 + random.nextInt(5)));
+            }
+            order.setOrderItems(orderItems);
+            result.add(order);
+        }
+
+        System.out.printf("payload bytes: json=%d, columnar json=%d, columnar smile=%d, smile=%d%n",
+                encode(json, result), encode(json, new ColumnarOrderResponse(result)),
+                encode(smile, new ColumnarOrderResponse(result)), encode(smile, result));
+    }
+
+    //현재 응답 (List<OrderQueryDTO>)
+    @Benchmark
+    public byte[] json(PayloadCounters counters) throws Exception {
+        return count(counters, json.writeValueAsBytes(result));
+    }
+
+    @Benchmark
+    public byte[] columnarJson(PayloadCounters counters) throws Exception {
+        return count(counters, json.writeValueAsBytes(new ColumnarOrderResponse(result)));
+    }
+
+    @Benchmark
+    public byte[] columnarSmile(PayloadCounters counters) throws Exception {
+        return count(counters, smile.writeValueAsBytes(new ColumnarOrderResponse(result)));
+    }
+
+    //참고: 행 형식 그대로 Smile 인코딩 (필드 이름 back-reference 만 적용)
+    @Benchmark
+    public byte[] smile(PayloadCounters counters) throws Exception {
+        return count(counters, smile.writeValueAsBytes(result));
+    }
+
+    private static byte[] count(PayloadCounters counters, byte[] payload) {
+        counters.bytes += payload.length;
+        return payload;
+    }
+
+    private static int encode(ObjectMapper mapper, Object value) {
+        try {
+            return mapper.writeValueAsBytes(value).length;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
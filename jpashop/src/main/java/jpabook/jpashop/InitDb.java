@@ -2,7 +2,9 @@ package jpabook.jpashop;
 
 import jpabook.jpashop.domain.*;
 import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.service.OrderSalesRollup;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -10,14 +12,17 @@ import javax.annotation.PostConstruct;
 import javax.persistence.EntityManager;
 
 @Component
+@Profile("!" + LoadTestDataGenerator.PROFILE)   //부하 테스트 프로필에서는 LoadTestDataGenerator 가 데이터를 만든다.
 @RequiredArgsConstructor
 public class InitDb {
 
     private final InitService initService;
+    private final OrderSalesRollup orderSalesRollup;
 
     @PostConstruct
     public void init() {
         initService.dbInit1();
+        orderSalesRollup.rebuild();     //OrderService 를 거치지 않고 넣은 주문을 매출 롤업에 반영
     }
 
     @Component
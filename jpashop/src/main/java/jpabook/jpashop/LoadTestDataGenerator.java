@@ -0,0 +1,311 @@
+package jpabook.jpashop;
+
+import jpabook.jpashop.service.OrderSalesRollup;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+//부하 테스트용 데이터 생성기 (InitDb 대신)
+//  실행: --spring.profiles.active=loadtest (설정: application-loadtest.yml, LoadTestDataProperties)
+//  InitDb 는 회원 1명, 상품 2개, 주문 1건뿐이라 실제 실행 계획이나 default_batch_fetch_size 동작을 재현할 수 없다.
+//  회원 N명, 상품 M개(Book/Album/Movie), 카테고리 트리, 주문(인기 상품에 몰리는 Zipf 분포)을 만든다.
+//  -엔티티를 거치지 않고 JdbcTemplate batch insert 로 넣는다. batchSize 건 단위로 나눠서 threads 개 스레드가 각자 트랜잭션으로 넣는다.
+//  -id 는 1부터 직접 정하고, 끝나면 엔티티별 시퀀스를 최대 id 다음 값으로 다시 시작한다. (이후 em.persist 와 겹치지 않게)
+//  -묶음마다 (seed, 테이블, 시작 번호)로 만든 난수를 쓰므로 스레드 수, 실행 순서와 상관없이 같은 데이터가 만들어진다.
+//      (주문일만 실행한 날짜 기준으로 최근 orderDays 일)
+//  -@PostConstruct 에서 실행하므로 회원 이름 색인, Bloom filter 는 애플리케이션 시작 후(ApplicationReadyEvent) 생성된 데이터로 채워진다.
+@Slf4j
+@Component
+@Profile(LoadTestDataGenerator.PROFILE)
+@RequiredArgsConstructor
+public class LoadTestDataGenerator {
+
+    public static final String PROFILE = "loadtest";
+
+    private static final String[] FAMILY = {"김", "이", "박", "최", "정", "강", "조", "윤", "장", "임"};
+    private static final String[] GIVEN = {"민", "서", "준", "지", "현", "우", "도", "하", "윤", "수",
+            "예", "진", "주", "원", "영", "성", "태", "은", "재", "호"};
+    private static final String[] CITIES = {"서울", "부산", "인천", "대구", "대전", "광주", "울산", "수원"};
+
+    //테이블별 난수 salt
+    private static final long MEMBER = 1, ITEM = 2, CATEGORY = 3, CATEGORY_ITEM = 4, ORDER = 5, POPULARITY = 6;
+
+    private final LoadTestDataProperties properties;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final OrderSalesRollup orderSalesRollup;
+
+    //묶음 [from, to) 의 row 를 넣고 넣은 row 수를 반환
+    private interface ChunkWriter {
+        int write(int from, int to, SplittableRandom random);
+    }
+
+    @PostConstruct
+    public void generate() {
+        long start = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(properties.getThreads());
+        try {
+            long[] leafIds = insertCategories();
+            run(executor, "member", MEMBER, properties.getMembers(), this::writeMembers);
+            run(executor, "item", ITEM, properties.getItems(), this::writeItems);
+            run(executor, "category_item", CATEGORY_ITEM, properties.getItems(),
+                    (from, to, random) -> writeCategoryItems(from, to, random, leafIds));
+            ItemSampler sampler = new ItemSampler(properties.getItems(), properties.getItemSkew(),
+                    new SplittableRandom(seed(POPULARITY, 0)));
+            LocalDateTime end = LocalDate.now().atStartOfDay();
+            run(executor, "orders", ORDER, properties.getOrders(),
+                    (from, to, random) -> writeOrders(from, to, random, sampler, end));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        int categories = categoryCount();
+        restartSequence("member_seq", properties.getMembers());
+        restartSequence("item_seq", properties.getItems());
+        restartSequence("category_seq", categories);
+        restartSequence("category_closure_seq", (long) categories * properties.getCategoryDepth());
+        restartSequence("delivery_seq", properties.getOrders());
+        restartSequence("orders_seq", properties.getOrders());
+        restartSequence("order_item_seq", (long) properties.getOrders() * properties.getMaxItemsPerOrder());
+        transactionTemplate.executeWithoutResult(status -> orderSalesRollup.rebuild());     //매출 롤업
+        log.info("load test data generated. seconds={}", TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start));
+    }
+
+    //[0, total) 를 batchSize 단위로 나눠서 병렬로 넣는다.
+    private void run(ExecutorService executor, String table, long salt, int total, ChunkWriter writer) {
+        long start = System.nanoTime();
+        List<Future<Integer>> futures = new ArrayList<>();
+        for (int from = 0; from < total; from += properties.getBatchSize()) {
+            int first = from;
+            int to = Math.min(from + properties.getBatchSize(), total);
+            futures.add(executor.submit(() -> transactionTemplate.execute(
+                    status -> writer.write(first, to, new SplittableRandom(seed(salt, first))))));
+        }
+
+        long rows = 0;
+        try {
+            for (Future<Integer> future : futures) {
+                rows += future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("부하 테스트 데이터 생성이 중단되었습니다.", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("부하 테스트 데이터 생성에 실패했습니다. table=" + table, e.getCause());
+        }
+        long elapsed = System.nanoTime() - start;
+        log.info("generated {}. rows={}, ms={}, rows/s={}", table, rows, TimeUnit.NANOSECONDS.toMillis(elapsed),
+                elapsed == 0 ? 0 : rows * TimeUnit.SECONDS.toNanos(1) / elapsed);
+    }
+
+    private int writeMembers(int from, int to, SplittableRandom random) {
+        List<Object[]> rows = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            long id = i + 1;
+            String name = FAMILY[random.nextInt(FAMILY.length)] + GIVEN[random.nextInt(GIVEN.length)]
+                    + GIVEN[random.nextInt(GIVEN.length)] + id;     //member.name 은 unique
+            rows.add(new Object[]{id, name, CITIES[random.nextInt(CITIES.length)],
+                    String.valueOf(random.nextInt(1, 1000)), String.format("%05d", random.nextInt(100000))});
+        }
+        jdbcTemplate.batchUpdate("insert into member (member_id, name, city, street, zipcode) values (?, ?, ?, ?, ?)", rows);
+        return rows.size();
+    }
+
+    //Book, Album, Movie 를 번갈아 가면서
+    private int writeItems(int from, int to, SplittableRandom random) {
+        List<Object[]> rows = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            long id = i + 1;
+            Object[] row = new Object[]{id, null, null, priceOf(id), 1_000_000, null, null, null, null, null, null};
+            switch (i % 3) {
+                case 0:
+                    row[1] = "B";
+                    row[2] = "BOOK " + id;
+                    row[5] = FAMILY[random.nextInt(FAMILY.length)] + GIVEN[random.nextInt(GIVEN.length)];
+                    row[6] = String.valueOf(9_780_000_000_000L + id);
+                    break;
+                case 1:
+                    row[1] = "A";
+                    row[2] = "ALBUM " + id;
+                    row[7] = "ARTIST " + random.nextInt(1000);
+                    break;
+                default:
+                    row[1] = "M";
+                    row[2] = "MOVIE " + id;
+                    row[9] = "DIRECTOR " + random.nextInt(1000);
+                    row[10] = "ACTOR " + random.nextInt(1000);
+            }
+            rows.add(row);
+        }
+        jdbcTemplate.batchUpdate("insert into item (item_id, dtype, name, price, stock_quantity," +
+                " author, isbn, artist, etc, director, actor, version) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0)", rows);
+        return rows.size();
+    }
+
+    //상품마다 리프 카테고리 1개
+    private int writeCategoryItems(int from, int to, SplittableRandom random, long[] leafIds) {
+        List<Object[]> rows = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            rows.add(new Object[]{leafIds[random.nextInt(leafIds.length)], (long) i + 1});
+        }
+        jdbcTemplate.batchUpdate("insert into category_item (category_id, item_id) values (?, ?)", rows);
+        return rows.size();
+    }
+
+    //주문 1건 = 배송 1 + 주문 1 + 주문상품 1 ~ maxItemsPerOrder
+    //  주문상품 id = (주문 id - 1) * maxItemsPerOrder + 순번 (빈 번호는 그냥 둔다)
+    private int writeOrders(int from, int to, SplittableRandom random, ItemSampler sampler, LocalDateTime end) {
+        int maxItems = properties.getMaxItemsPerOrder();
+        long orderSeconds = TimeUnit.DAYS.toSeconds(properties.getOrderDays());
+        List<Object[]> deliveries = new ArrayList<>(to - from);
+        List<Object[]> orders = new ArrayList<>(to - from);
+        List<Object[]> orderItems = new ArrayList<>((to - from) * maxItems);
+
+        for (int i = from; i < to; i++) {
+            long id = i + 1;
+            long memberId = 1 + random.nextInt(properties.getMembers());
+            LocalDateTime orderDate = end.minusSeconds(random.nextLong(orderSeconds));
+            boolean canceled = random.nextDouble() < properties.getCancelRate();
+            boolean delivered = !canceled && orderDate.isBefore(end.minusDays(3));
+
+            deliveries.add(new Object[]{id, CITIES[random.nextInt(CITIES.length)], String.valueOf(random.nextInt(1, 1000)),
+                    String.format("%05d", random.nextInt(100000)), delivered ? "COMP" : "READY"});
+            orders.add(new Object[]{id, memberId, id, Timestamp.valueOf(orderDate), canceled ? "CANCEL" : "ORDER"});
+
+            int itemCount = 1 + random.nextInt(maxItems);
+            for (int j = 0; j < itemCount; j++) {
+                long itemId = sampler.next(random);
+                orderItems.add(new Object[]{(id - 1) * maxItems + j + 1, itemId, id, priceOf(itemId), 1 + random.nextInt(3)});
+            }
+        }
+
+        jdbcTemplate.batchUpdate("insert into delivery (delivery_id, city, street, zipcode, status) values (?, ?, ?, ?, ?)", deliveries);
+        jdbcTemplate.batchUpdate("insert into orders (order_id, member_id, delivery_id, order_date, status) values (?, ?, ?, ?, ?)", orders);
+        jdbcTemplate.batchUpdate("insert into order_item (order_item_id, item_id, order_id, order_price, count) values (?, ?, ?, ?, ?)", orderItems);
+        return deliveries.size() + orders.size() + orderItems.size();
+    }
+
+    //카테고리 트리 (depth 단계, 노드마다 자식 fanout 개) + closure row, 리프 카테고리 id 목록을 반환
+    //  부모가 먼저 오도록 너비 우선으로 id 를 매기고, 각 노드의 조상 목록으로 closure 를 만든다.
+    private long[] insertCategories() {
+        int fanout = properties.getCategoryFanout();
+        List<Object[]> categories = new ArrayList<>();
+        List<Object[]> closures = new ArrayList<>();
+        List<long[]> level = new ArrayList<>();     //현재 단계 노드들의 [자신, 부모, 조부모, ...]
+        level.add(new long[0]);
+        long nextId = 1;
+        long nextClosureId = 1;
+
+        for (int depth = 1; depth <= properties.getCategoryDepth(); depth++) {
+            List<long[]> children = new ArrayList<>();
+            for (long[] parentPath : level) {
+                for (int k = 0; k < fanout; k++) {
+                    long id = nextId++;
+                    long[] path = new long[parentPath.length + 1];
+                    path[0] = id;
+                    System.arraycopy(parentPath, 0, path, 1, parentPath.length);
+                    categories.add(new Object[]{id, "CATEGORY " + id, parentPath.length == 0 ? null : parentPath[0]});
+                    for (int d = 1; d < path.length; d++) {
+                        closures.add(new Object[]{nextClosureId++, path[d], id, d});
+                    }
+                    children.add(path);
+                }
+            }
+            level = children;
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate("insert into category (category_id, name, parent_id) values (?, ?, ?)", categories);
+            jdbcTemplate.batchUpdate("insert into category_closure (category_closure_id, ancestor_id, descendant_id, depth) values (?, ?, ?, ?)", closures);
+        });
+        log.info("generated category. categories={}, closures={}", categories.size(), closures.size());
+        return level.stream().mapToLong(path -> path[0]).toArray();
+    }
+
+    private int categoryCount() {
+        int count = 0;
+        int width = 1;
+        for (int depth = 1; depth <= properties.getCategoryDepth(); depth++) {
+            width *= properties.getCategoryFanout();
+            count += width;
+        }
+        return count;
+    }
+
+    //생성한 최대 id 다음 값부터 다시 시작 (pooled-lo 는 시퀀스 값부터 allocation size 만큼 사용)
+    private void restartSequence(String sequence, long maxId) {
+        jdbcTemplate.execute("alter sequence " + sequence + " restart with " + (maxId + 1));
+    }
+
+    //상품 가격은 id 로 정한다. (주문상품 가격을 상품 테이블 조회 없이 만들기 위해)
+    private int priceOf(long itemId) {
+        return 1000 + (int) Math.floorMod(mix(properties.getSeed() ^ itemId), 100L) * 500;
+    }
+
+    private long seed(long salt, long from) {
+        return mix(properties.getSeed() * 31 + salt) ^ mix(from);
+    }
+
+    private static long mix(long h) {
+        h = (h ^ (h >>> 30)) * 0xbf58476d1ce4e5b9L;
+        h = (h ^ (h >>> 27)) * 0x94d049bb133111ebL;
+        return h ^ (h >>> 31);
+    }
+
+    //Zipf 분포로 상품 id 를 뽑는다.
+    //  인기 순위 k 의 가중치 1 / k^skew, 누적 분포에서 이분 탐색
+    //  인기 순위와 상품 id 가 같으면 id 가 작은 상품만 인기가 많으므로 순위 -> id 를 seed 로 섞는다.
+    private static class ItemSampler {
+
+        private final double[] cumulative;
+        private final long[] itemIds;
+
+        ItemSampler(int items, double skew, SplittableRandom random) {
+            cumulative = new double[items];
+            double sum = 0;
+            for (int k = 0; k < items; k++) {
+                sum += 1 / Math.pow(k + 1, skew);
+                cumulative[k] = sum;
+            }
+            for (int k = 0; k < items; k++) {
+                cumulative[k] /= sum;
+            }
+
+            itemIds = new long[items];
+            for (int k = 0; k < items; k++) {
+                itemIds[k] = k + 1;
+            }
+            for (int k = items - 1; k > 0; k--) {
+                int j = random.nextInt(k + 1);
+                long tmp = itemIds[k];
+                itemIds[k] = itemIds[j];
+                itemIds[j] = tmp;
+            }
+        }
+
+        long next(SplittableRandom random) {
+            int idx = Arrays.binarySearch(cumulative, random.nextDouble());
+            if (idx < 0) {
+                idx = -idx - 1;
+            }
+            return itemIds[Math.min(idx, itemIds.length - 1)];
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package jpabook.jpashop;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+//부하 테스트 데이터 생성 설정 (jpashop.load-test.*, application-loadtest.yml)
+@Getter
+@Setter
+@Component
+@Profile(LoadTestDataGenerator.PROFILE)
+@ConfigurationProperties(prefix = "jpashop.load-test")
+public class LoadTestDataProperties {
+
+    private long seed = 42;                 //같은 seed, 같은 설정이면 같은 데이터 (스레드 수와 무관)
+    private int members = 100_000;
+    private int items = 10_000;             //Book, Album, Movie 를 1/3 씩
+    private int orders = 1_000_000;
+    private int maxItemsPerOrder = 3;       //주문당 주문상품 1 ~ maxItemsPerOrder 건
+    private double itemSkew = 1.0;          //상품 인기도 Zipf 지수 (0 이면 균등, 클수록 소수 상품에 주문이 몰린다)
+    private int categoryDepth = 3;
+    private int categoryFanout = 5;         //카테고리 수 = fanout + fanout^2 + ... + fanout^depth
+    private int orderDays = 365;            //주문일: 최근 orderDays 일에 고르게 분포
+    private double cancelRate = 0.05;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int batchSize = 1000;           //JDBC batch 크기 = 트랜잭션 1개에 넣는 row 묶음 크기
+}
@@ -0,0 +1,47 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.service.query.CategoryQueryService;
+import jpabook.jpashop.service.query.CategoryTree;
+import jpabook.jpashop.service.query.ItemQueryDto;
+import jpabook.jpashop.service.query.PageLimit;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+public class CategoryApiController {
+
+    private final CategoryQueryService categoryQueryService;
+
+    //카테고리 트리 (캐시)
+    @GetMapping("/api/v1/categories")
+    public Result<List<CategoryTree.Node>> categories() {
+        return new Result<>(categoryQueryService.findTree().getRoots());
+    }
+
+    //카테고리와 모든 하위 카테고리의 상품 페이징
+    @GetMapping("/api/v1/categories/{categoryId}/items")
+    public Result<List<ItemQueryDto>> subtreeItems(
+            @PathVariable("categoryId") Long categoryId,
+            @RequestParam(value = "offset", defaultValue = "0") int offset,
+            @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        if (offset < 0) {
+            throw new IllegalArgumentException("offset 은 0 이상이어야 합니다.");
+        }
+        PageLimit.check(limit);
+        return new Result<>(categoryQueryService.findSubtreeItems(categoryId, offset, limit));
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class Result<T> {
+        private T data;
+    }
+}
@@ -0,0 +1,102 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.repository.order.query.OrderItemQueryDTO;
+import jpabook.jpashop.repository.order.query.OrderQueryDTO;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+//주문 목록 컬럼 형식 응답 (Accept: application/vnd.jpashop.columnar+json 또는 application/x-jackson-smile)
+//  기본 JSON 은 주문마다 필드 이름과 Address 전체를 반복한다.
+//  여기서는 필드별로 배열 하나씩(컬럼) 내려주고, 반복되는 문자열(회원 이름, 상태, 주소, 상품 이름)은 사전에 한 번만 넣고 인덱스로 참조한다.
+//      주문 i          : orderId[i], orderDate[i], names[name[i]], statuses[status[i]], addresses[address[i]]
+//      주문 i 의 상품   : j = itemOffset[i] ~ itemOffset[i + 1] - 1 -> itemNames[itemName[j]], orderPrice[j], count[j]
+@Getter
+public class ColumnarOrderResponse {
+
+    public static final String MEDIA_TYPE = "application/vnd.jpashop.columnar+json";
+
+    private final int size;
+    private final long[] orderId;
+    private final List<LocalDateTime> orderDate;
+    private final int[] name;
+    private final int[] status;
+    private final int[] address;
+    private final int[] itemOffset;
+    private final int[] itemName;
+    private final int[] orderPrice;
+    private final int[] count;
+
+    //사전
+    private final List<String> names;
+    private final List<String> statuses;
+    private final List<Address> addresses;
+    private final List<String> itemNames;
+
+    public ColumnarOrderResponse(List<OrderQueryDTO> orders) {
+        size = orders.size();
+        orderId = new long[size];
+        orderDate = new ArrayList<>(size);
+        name = new int[size];
+        status = new int[size];
+        address = new int[size];
+        itemOffset = new int[size + 1];
+
+        int items = 0;
+        for (OrderQueryDTO o : orders) {
+            items += o.getOrderItems() == null ? 0 : o.getOrderItems().size();
+        }
+        itemName = new int[items];
+        orderPrice = new int[items];
+        count = new int[items];
+
+        Dictionary<String> nameDictionary = new Dictionary<>();
+        Dictionary<String> statusDictionary = new Dictionary<>();
+        Dictionary<Address> addressDictionary = new Dictionary<>();
+        Dictionary<String> itemNameDictionary = new Dictionary<>();
+
+        int j = 0;
+        for (int i = 0; i < size; i++) {
+            OrderQueryDTO o = orders.get(i);
+            orderId[i] = o.getOrderId();
+            orderDate.add(o.getOrderDate());
+            name[i] = nameDictionary.indexOf(o.getName());
+            status[i] = statusDictionary.indexOf(o.getOrderStatus() == null ? null : o.getOrderStatus().name());
+            address[i] = addressDictionary.indexOf(o.getAddress());
+            itemOffset[i] = j;
+            if (o.getOrderItems() != null) {
+                for (OrderItemQueryDTO oi : o.getOrderItems()) {
+                    itemName[j] = itemNameDictionary.indexOf(oi.getItemName());
+                    orderPrice[j] = oi.getOrderPrice();
+                    count[j] = oi.getCount();
+                    j++;
+                }
+            }
+        }
+        itemOffset[size] = j;
+
+        names = nameDictionary.values;
+        statuses = statusDictionary.values;
+        addresses = addressDictionary.values;
+        itemNames = itemNameDictionary.values;
+    }
+
+    //처음 나온 순서대로 번호를 붙이는 사전 (Address 는 값 타입이라 equals 로 같은 주소를 합친다)
+    private static class Dictionary<T> {
+
+        private final Map<T, Integer> index = new HashMap<>();
+        private final List<T> values = new ArrayList<>();
+
+        int indexOf(T value) {
+            return index.computeIfAbsent(value, v -> {
+                values.add(v);
+                return values.size() - 1;
+            });
+        }
+    }
+}
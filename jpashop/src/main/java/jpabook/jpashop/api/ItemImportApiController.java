@@ -0,0 +1,44 @@
+package jpabook.jpashop.api;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jpabook.jpashop.repository.ItemImportRow;
+import jpabook.jpashop.service.ItemCsvReader;
+import jpabook.jpashop.service.ItemImportResult;
+import jpabook.jpashop.service.ItemImportService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+//상품 일괄 등록 API
+//  요청 본문을 스트리밍으로 읽는다. (전체 본문을 메모리에 올리지 않음)
+//  CSV: curl -X POST -H 'Content-Type: text/csv' --data-binary @items.csv localhost:8080/api/v1/items/import
+//  JSON: 객체 배열 또는 한 줄에 객체 하나 (application/x-ndjson)
+@RestController
+@RequiredArgsConstructor
+public class ItemImportApiController {
+
+    private static final String TEXT_CSV = "text/csv";
+    private static final String NDJSON = "application/x-ndjson";
+
+    private final ObjectMapper objectMapper;
+    private final ItemImportService itemImportService;
+
+    @PostMapping(value = "/api/v1/items/import", consumes = TEXT_CSV)
+    public ItemImportResult importCsv(InputStream body) {
+        return itemImportService.importItems(new ItemCsvReader(new InputStreamReader(body, StandardCharsets.UTF_8)));
+    }
+
+    @PostMapping(value = "/api/v1/items/import", consumes = {MediaType.APPLICATION_JSON_VALUE, NDJSON})
+    public ItemImportResult importJson(InputStream body) throws IOException {
+        try (MappingIterator<ItemImportRow> rows = objectMapper.readerFor(ItemImportRow.class).readValues(body)) {
+            return itemImportService.importItems(rows);
+        }
+    }
+}
@@ -1,14 +1,24 @@
 package jpabook.jpashop.api;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.monitoring.SqlBudget;
+import jpabook.jpashop.repository.MemberNameDTO;
 import jpabook.jpashop.service.MemberService;
+import jpabook.jpashop.service.query.PageLimit;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import org.hibernate.sql.Update;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -17,6 +27,8 @@ import java.util.stream.Collectors;
 public class MemberApiController {
 
     private final MemberService memberService;
+    private final ObjectMapper objectMapper;
+
     //등록 V1: 요청 값으로 Member 엔티티를 직접 받는다.
     //문제점
     //  -엔티티에 프레젠테이션 계층을 위한 로직이 추가된다.
@@ -71,14 +83,48 @@ public class MemberApiController {
     //  엔티티를 DTO 로 변환해서 반환한다.
     //  엔티티가 변해도 API 스펙이 변경되지 않는다.
     //  추가로 Result 클래스로 컬렉션을 감싸서 향후 필요한 필드를 추가할 수 있다.
+    //  전체 회원 엔티티를 로딩하지 않고 id, 이름만 조회 + member_id 기준 keyset 페이징
+    //      -이전 응답의 nextLastMemberId 를 lastMemberId 로 넘긴다. (null 이면 마지막 페이지)
+    //      -몇 번째 페이지든 PK 인덱스로 limit 건만 읽는다.
+    @SqlBudget(statements = 1)
     @GetMapping("/api/v2/members")
-    public Result membersV2(){
-        List<Member> findMembers = memberService.findMembers();
+    public KeysetResult<List<MemberDto>> membersV2(
+            @RequestParam(value = "lastMemberId", required = false) Long lastMemberId,
+            @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        PageLimit.check(limit);
+        List<MemberNameDTO> members = memberService.findMemberNames(lastMemberId, limit);
         //엔티티 -> DTO 변환
-        List<MemberDto> collect = findMembers.stream()
+        List<MemberDto> collect = members.stream()
                 .map(m -> new MemberDto(m.getName()))
                 .collect(Collectors.toList());
-        return new Result(collect);
+        Long nextLastMemberId = members.size() == limit ? members.get(members.size() - 1).getMemberId() : null;
+        return new KeysetResult<>(collect, nextLastMemberId);
+    }
+
+    //조회 V2 스트리밍: 전체 회원을 {"data":[{"name":...}, ...]} 로 한번에 응답
+    //  커서로 읽으면서 JsonGenerator 로 응답 스트림에 바로 쓴다. (DTO List, 응답 문자열을 메모리에 올리지 않음)
+    //  -> 회원 수와 상관없이 메모리 사용량 일정, 첫 바이트가 바로 나간다.
+    @SqlBudget(statements = 1)
+    @GetMapping(value = "/api/v2/members/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+    public void membersV2_stream(HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("data");
+            memberService.streamMemberNames(m -> {
+                try {
+                    generator.writeStartObject();
+                    generator.writeStringField("name", m.getName());
+                    generator.writeEndObject();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
     }
 
     @Data
@@ -111,6 +157,13 @@ public class MemberApiController {
         private T data;
     }
 
+    @Data
+    @AllArgsConstructor
+    static class KeysetResult<T> {
+        private T data;
+        private Long nextLastMemberId;
+    }
+
     @Data
     @AllArgsConstructor
     static class MemberDto{
@@ -1,31 +1,57 @@
 package jpabook.jpashop.api;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
 import jpabook.jpashop.domain.Address;
 import jpabook.jpashop.domain.Order;
 import jpabook.jpashop.domain.OrderItem;
 import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.monitoring.SqlBudget;
+import jpabook.jpashop.repository.OrderCursor;
 import jpabook.jpashop.repository.OrderRepository;
 import jpabook.jpashop.repository.OrderSearch;
+import jpabook.jpashop.repository.order.query.OrderDetailQueryDTO;
 import jpabook.jpashop.repository.order.query.OrderFlatDTO;
 import jpabook.jpashop.repository.order.query.OrderItemQueryDTO;
 import jpabook.jpashop.repository.order.query.OrderQueryDTO;
 import jpabook.jpashop.repository.order.query.OrderQueryRepository;
+import jpabook.jpashop.repository.support.FetchPlan;
+import jpabook.jpashop.service.CancelOutcome;
+import jpabook.jpashop.service.OrderCancelPipeline;
+import jpabook.jpashop.service.query.PageLimit;
+import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import javax.servlet.http.HttpServletResponse;
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 @RequiredArgsConstructor
 @RestController
 public class OrderApiController {
 
+    private static final String NDJSON = "application/x-ndjson";
+    private static final String SMILE = "application/x-jackson-smile";
+
+    private final ObjectMapper objectMapper;
     private final OrderRepository orderRepository;
     private final OrderQueryRepository orderQueryRepository;
+    private final OrderCancelPipeline orderCancelPipeline;
 
     //API 개발 고급 정리
     //  엔티티 조회
@@ -59,6 +85,8 @@ public class OrderApiController {
     //  OSIV 를 끄면 트랜잭션을 종료할 때 영속성 컨텍스트를 닫고, DB connection 도 반환한다. 따라서 낭비가 없다.
     //  OSIV 를 끄면 모든 지연 로딩을 트랜잭션 안에서 처리해야 한다. -> 지연 로딩 코드를 트랜잭션 안으로 넣어야 함
     //  그리고 View Template 에서 지연 로딩이 동작하지 않는다. -> 트랜잭션이 끝나기 전에 지연 로딩을 강제 호출
+    //  이 프로젝트는 open-in-view: false
+    //      -> 컨트롤러 메서드에 @FetchPlan 으로 필요한 연관관계를 선언하면, 리포지토리가 트랜잭션 안에서 미리 로딩한다.
 
     //커맨드와 쿼리 분리
     //  예를 들어, OrderService   -> OrderService: 핵심 비즈니스 로직
@@ -66,36 +94,36 @@ public class OrderApiController {
 
     //V1. 엔티티 직접 노출
     //  엔티티가 변하면 API 스펙이 변한다.
-    //  트랜잭션 안에서 지연 로딩 필요
     //  양방향 연관관계 문제
-    //  orderItem, item 관계를 직접 초기화하면 Hibernate5Module 설정에 의해 엔티티를 JSON 으로 생성한다.
+    //  연관관계는 @FetchPlan 으로 리포지토리 트랜잭션 안에서 이미 로딩된다. (SQL 수는 V2 와 같다)
+    //  초기화된 orderItem, item 관계는 Hibernate5Module 설정에 의해 엔티티를 JSON 으로 생성한다.
     //  양방향 연관관계면 무한 루프에 걸리지 않게 한 곳에 @JsonIgnore 를 추가해야 한다.
     //  엔티티를 직접 노출하므로 좋은 방법은 아니다
+    @FetchPlan({"member", "delivery", "orderItems.item"})
     @GetMapping("/api/v1/orders")
     public List<Order> ordersV1() {
-        List<Order> all = orderRepository.findAllByCriteria(new OrderSearch());
+        List<Order> all = orderRepository.findAllByCriteria(OrderSearch.unpaged());
         for (Order order : all) {
-            order.getMember().getName();                        //LAZY 강제 초기화
-            order.getDelivery().getAddress();                   //LAZY 강제 초기화
+            order.getMember().getName();                        //@FetchPlan 으로 이미 로딩됨 (SQL 없음)
+            order.getDelivery().getAddress();
             List<OrderItem> orderItems = order.getOrderItems();
-            orderItems.forEach(o->o.getItem().getName());       //LAZY 강제 초기화
+            orderItems.forEach(o->o.getItem().getName());
         }
         return all;
     }
 
     //V2. 엔티티를 조회해서 DTO 로 변환 (fetch join 사용X)
-    //  트랜잭션 안에서 지연 로딩 필요
-    //  지연 로딩으로 너무 많은 SQL 실행
-    //  SQL 실행수
-    //      order 1번
-    //      member, address N 번(order 조회 수 만큼)
-    //      orderItem N 번(order 조회 수 만큼)
-    //      item N번(orderItem 조회 수 만큼)
+    //  @FetchPlan 이 없으면 DTO 변환 중 지연 로딩으로 1+N+N+N 번 SQL 을 실행한다.
+    //      (order 1번, member/delivery N 번, orderItem N 번, item 은 orderItem 수만큼)
+    //  @FetchPlan 이 있으면 리포지토리가 트랜잭션 안에서 미리 로딩한다. (FetchPlanLoader)
+    //      order + member + delivery: 엔티티 그래프로 조인해서 1번
+    //      orderItem, item: default_batch_fetch_size(100) 단위 IN 절 -> 각각 ceil(N / 100) 번
     //  LAZY 로딩은 영속성 컨텍스트에 있으면 영속성 컨텍스트에 있는 엔티티를 사용하고,
     //  없으면 SQL 을 실행한다.
+    @FetchPlan({"member", "delivery", "orderItems.item"})
     @GetMapping("/api/v2/orders")
     public List<OrderDTO> ordersV2(){
-        List<Order> orders = orderRepository.findAllByCriteria(new OrderSearch());
+        List<Order> orders = orderRepository.findAllByCriteria(OrderSearch.unpaged());
         List<OrderDTO> collect = orders.stream()
                 .map(OrderDTO::new)
                 .collect(Collectors.toList());
@@ -111,6 +139,7 @@ public class OrderApiController {
     //  이 예시에서 order 가 컬렉션 페치 조인 때문에 중복 조회되는 것을 막아준다.
     //  단점: 페이징이 불가능하다. -> 컬렉션 페치 조인으로는 페이징이 불가능하다.
     //  컬렉션 페치 조인은 1개만 가능하다. 컬렉션에 둘 이상의 페치 조인을 사용하면 안된다. (데이터 부정합이 일어날 수 있음)
+    @SqlBudget(statements = 1)
     @GetMapping("/api/v3/orders")
     public List<OrderDTO> ordersV3() {
         List<Order> orders = orderRepository.findAllWithItem();
@@ -123,7 +152,7 @@ public class OrderApiController {
     //  ToOne 관계만 우선 모두 페치 조인으로 최적화
     //  컬렉션 관계는 hibernate.default_batch_fetch_size, @BatchSize 로 최적화
     //  장점
-    //      쿼리 호출 수가 1+N -> 1+1로 최적화된다.
+    //      쿼리 호출 수가 1+N (순수 지연 로딩) -> 1+1로 최적화된다. (V1, V2 도 @FetchPlan 으로 같은 방식으로 로딩한다)
     //      조인보다 DB 데이터 전송량이 최적화된다. (Order 과 OrderItem 을 조인하면 Order 가 OrderItem 만큼 중복해서 조회된다.
     //      이 방식은 각각 조회하는 방식이므로 전송해야 할 중복 데이터가 없다.)
     //      페치 조인 방식과 비교해서 쿼리 호출 수가 약간 증가하지만, DB 데이터 전송량이 감소한다.
@@ -134,6 +163,8 @@ public class OrderApiController {
     //      이 전략을 SQL IN 절을 사용하는데, DB 에 따라 IN 절 파라미터를 1000으로 제한하기도 한다.
     //      1000개를 한 번에 불러오므로 순간 부하가 증가할 수 있지만 결국에는 전체 데이터를 조회해야하므로 메모리 사용량은 같다.
     //
+    @SqlBudget(statements = 3)     //order+member+delivery 1, orderItem 1, item 1
+    @FetchPlan("orderItems.item")
     @GetMapping("/api/v3.1/orders")
     public List<OrderDTO> ordersV3_page(
             @RequestParam(value = "offset", defaultValue = "0") int offset,
@@ -142,6 +173,29 @@ public class OrderApiController {
         return orders.stream().map(OrderDTO::new).collect(Collectors.toList());
     }
 
+    //V3.2. V3.1 + Keyset(seek) 페이징
+    //  offset 대신에 이전 응답의 nextCursor 를 cursor 로 넘긴다.
+    //  깊은 페이지도 첫 페이지와 같은 비용으로 조회된다.
+    //  nextCursor 가 null 이면 마지막 페이지
+    @SqlBudget(statements = 3)
+    @FetchPlan("orderItems.item")
+    @GetMapping("/api/v3.2/orders")
+    public CursorResult<List<OrderDTO>> ordersV3_cursor(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        PageLimit.check(limit);
+        OrderCursor orderCursor = cursor == null ? null : OrderCursor.decode(cursor);
+        List<Order> orders = orderRepository.findAllWithMemberDelivery(orderCursor, limit);
+
+        String nextCursor = null;
+        if (orders.size() == limit) {
+            Order last = orders.get(orders.size() - 1);
+            nextCursor = new OrderCursor(last.getOrderDate(), last.getId()).encode();
+        }
+        List<OrderDTO> collect = orders.stream().map(OrderDTO::new).collect(Collectors.toList());
+        return new CursorResult<>(collect, nextCursor);
+    }
+
 
     //V4. JPA 에서 DTO 로 바로 조회, 컬렉션 N 조회 (1+N Query)
     //  페이징 가능
@@ -160,21 +214,65 @@ public class OrderApiController {
     //  Query: 루트 1번, 컬렉션 1번
     //  ToOne 관계들을 먼저 조회하고, 여기서 얻은 식별자 orderId 로 ToMany 관계인 OrderItem 을 한번에 조회
     //  MAP 을 사용해서 매칭 성능 향상 (O(1))
+    //  OrderItem 은 InClauseBatchLoader 로 조회 (주문이 chunk-size 를 넘으면 청크 수만큼 쿼리가 늘어난다.)
+    @SqlBudget(statements = 2)
     @GetMapping("/api/v5/orders")
     public List<OrderQueryDTO> ordersV5() {
         return orderQueryRepository.findAllByDTO_optimization();
     }
 
+    //V5 컬럼 형식 (Accept 헤더로 선택, ColumnarOrderResponse 참고, budget 은 V5 와 같음)
+    //  application/vnd.jpashop.columnar+json : 컬럼 + 사전 인코딩 JSON
+    //  application/x-jackson-smile           : 같은 구조를 Smile(바이너리 JSON)로 인코딩
+    //  Accept 가 없거나 */*, application/json 이면 위의 기본 JSON
+    @SqlBudget(statements = 2)
+    @GetMapping(value = "/api/v5/orders", produces = {ColumnarOrderResponse.MEDIA_TYPE, SMILE})
+    public ColumnarOrderResponse ordersV5_columnar() {
+        return new ColumnarOrderResponse(orderQueryRepository.findAllByDTO_optimization());
+    }
+
+    //V5.1. V5 + 주문 상세(카테고리, 회원 누적 통계) + Keyset 페이징 (커서는 V3.2 와 같은 OrderCursor 토큰)
+    //  루트 1번 조회 후, 서로 의존하지 않는 주문상품 / 카테고리 / 회원 통계를 별도 커넥션에서 동시에 조회 (ParallelQueryExecutor)
+    //      -> 응답 시간이 쿼리 시간의 합이 아니라 루트 + 가장 느린 쿼리가 된다.
+    //  jpashop.parallel-query.timeout-ms 를 넘으면 나머지 쿼리를 취소하고 QueryTimeoutException
+    //  다른 스레드의 SQL 도 요청 범위에 기록되므로 budget 은 루트 1 + 주문상품 1 + 카테고리 1 + 회원 통계 1
+    @SqlBudget(statements = 4)
+    @GetMapping("/api/v5.1/orders")
+    public CursorResult<List<OrderDetailQueryDTO>> ordersV5_detail(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        PageLimit.check(limit);
+        OrderCursor orderCursor = cursor == null ? null : OrderCursor.decode(cursor);
+        List<OrderDetailQueryDTO> orders = orderQueryRepository.findOrderDetails(orderCursor, limit);
+
+        String nextCursor = null;
+        if (orders.size() == limit) {
+            OrderDetailQueryDTO last = orders.get(orders.size() - 1);
+            nextCursor = new OrderCursor(last.getOrderDate(), last.getOrderId()).encode();
+        }
+        return new CursorResult<>(orders, nextCursor);
+    }
+
     //V6. JPA 에서 DTO 로 바로 조회, 플랫 데이터 (1Query)
     //  페이징 불가능
     //  Query: 1번
     //  단점
     //      쿼리는 한번이지만 조인으로 인해 DB 에서 애플리케이션에 전달하는 데이터에 중복 데이터가 추가되므로 상황에 따라 V5 보다 더 느릴 수 있다.
     //      애플리케이션에서 추가 작업이 크다
+    @SqlBudget(statements = 1)
     @GetMapping("/api/v6/orders")
     public List<OrderQueryDTO> ordersV6() {
-        List<OrderFlatDTO> flats = orderQueryRepository.findAllByDTO_flat();
+        return groupFlats(orderQueryRepository.findAllByDTO_flat());
+    }
+
+    //V6 컬럼 형식
+    @SqlBudget(statements = 1)
+    @GetMapping(value = "/api/v6/orders", produces = {ColumnarOrderResponse.MEDIA_TYPE, SMILE})
+    public ColumnarOrderResponse ordersV6_columnar() {
+        return new ColumnarOrderResponse(groupFlats(orderQueryRepository.findAllByDTO_flat()));
+    }
 
+    private static List<OrderQueryDTO> groupFlats(List<OrderFlatDTO> flats) {
         return flats.stream()
                 .collect(Collectors.groupingBy(o->new OrderQueryDTO(o.getOrderId(), o.getName(), o.getOrderDate(), o.getOrderStatus(), o.getAddress()),
                         Collectors.mapping(o->new OrderItemQueryDTO(o.getOrderId(), o.getItemName(), o.getOrderPrice(), o.getCount()), Collectors.toList())))
@@ -182,6 +280,64 @@ public class OrderApiController {
                 .map(e->new OrderQueryDTO(e.getKey().getOrderId(), e.getKey().getName(), e.getKey().getOrderDate(), e.getKey().getOrderStatus(), e.getKey().getAddress(), e.getValue())).collect(Collectors.toList());
     }
 
+    //V6 스트리밍 export (NDJSON)
+    //  V6 는 플랫 row 전체 List + groupingBy Map + 결과 List 까지 모두 메모리에 올린다.
+    //  여기서는 커서로 읽으면서 주문 1건이 완성될 때마다 한 줄씩 바로 응답에 쓴다.
+    //  -> 주문 수와 상관없이 메모리 사용량 일정
+    @GetMapping(value = "/api/v6/orders/export", produces = NDJSON)
+    public void ordersV6_export(HttpServletResponse response) throws IOException {
+        response.setContentType(NDJSON);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+
+        try (SequenceWriter writer = objectMapper.writerFor(OrderQueryDTO.class)
+                .withRootValueSeparator("\n")
+                .writeValues(response.getOutputStream())) {
+            orderQueryRepository.streamAllByDTO_flat(order -> {
+                try {
+                    writer.write(order);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    //일괄 주문 취소
+    //  OrderCancelPipeline 큐에 넣고, 워커가 다른 요청들과 묶어서 처리한 결과를 주문별로 돌려준다.
+    //  DB 커넥션은 요청 스레드가 아니라 워커가 배치당 한 번만 사용한다.
+    //  CompletableFuture 를 반환하면 서블릿 스레드는 바로 반납되고(비동기 요청), 모든 결과가 채워지면 응답한다.
+    //  결과는 jpashop.cancel.response-timeout-ms 안에 반드시 채워진다. (초과 시 TIMEOUT)
+    @PostMapping("/api/v1/orders/cancel")
+    public CompletableFuture<List<CancelOrderResponse>> cancelOrders(@RequestBody @Valid CancelOrdersRequest request) {
+        Map<Long, CompletableFuture<CancelOutcome>> futures = new LinkedHashMap<>();
+        request.getOrderIds().forEach(id -> futures.put(id, orderCancelPipeline.submit(id)));
+
+        return CompletableFuture.allOf(futures.values().toArray(new CompletableFuture[0]))
+                .thenApply(done -> futures.entrySet().stream()
+                        .map(e -> new CancelOrderResponse(e.getKey(), e.getValue().join()))     //모두 끝났으므로 기다리지 않는다.
+                        .collect(Collectors.toList()));
+    }
+
+    @Data
+    static class CancelOrdersRequest {
+        @NotEmpty
+        private List<Long> orderIds;
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class CancelOrderResponse {
+        private Long orderId;
+        private CancelOutcome outcome;
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class CursorResult<T> {
+        private T data;
+        private String nextCursor;
+    }
+
     @Data
     static class OrderDTO {
         private Long orderId;
@@ -3,12 +3,17 @@ package jpabook.jpashop.api;
 import jpabook.jpashop.domain.Address;
 import jpabook.jpashop.domain.Order;
 import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.monitoring.SqlBudget;
 import jpabook.jpashop.repository.OrderRepository;
 import jpabook.jpashop.repository.OrderSearch;
 import jpabook.jpashop.repository.order.simplequery.OrderSimpleQueryDTO;
+import jpabook.jpashop.repository.order.simplequery.OrderSimpleQueryJdbcRepository;
+import jpabook.jpashop.repository.support.FetchPlan;
+import jpabook.jpashop.service.query.PageLimit;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.time.LocalDateTime;
@@ -25,16 +30,18 @@ import java.util.stream.Collectors;
 public class OrderSimpleApiController {
 
     private final OrderRepository orderRepository;
+    private final OrderSimpleQueryJdbcRepository orderSimpleQueryJdbcRepository;
 
     //V1. 엔티티 직접 노출
     //  Hibernate5Module 모듈 등록, LAZY = null 처리
     //  양방향 관계 문제 발생 -> @JsonIgnore
+    @FetchPlan({"member", "delivery"})
     @GetMapping("/api/v1/simple-orders")
     public List<Order> ordersV1() {
-        List<Order> all = orderRepository.findAllByCriteria(new OrderSearch());
+        List<Order> all = orderRepository.findAllByCriteria(OrderSearch.unpaged());
         for (Order order : all) {
-            order.getMember().getName();        //LAZY 강제 초기화
-            order.getDelivery().getAddress();   //LAZY 강제 초기화
+            order.getMember().getName();        //@FetchPlan 으로 이미 로딩됨 (SQL 없음)
+            order.getDelivery().getAddress();
         }
         return all;
     }
@@ -49,18 +56,20 @@ public class OrderSimpleApiController {
 
         public SimpleOrderDTO(Order order) {
             orderId = order.getId();
-            name = order.getMember().getName();         //LAZY 초기화
+            name = order.getMember().getName();         //V2 는 @FetchPlan 으로 이미 로딩됨
             orderDate = order.getOrderDate();
             orderStatus = order.getStatus();
-            address = order.getDelivery().getAddress(); //LAZY 초기화
+            address = order.getDelivery().getAddress();
         }
     }
 
     //V2. 엔티티를 조회해서 DTO 로 변환 (fetch join 사용X)
-    //  단점: 지연로딩으로 쿼리 N 번 호출
+    //  @FetchPlan 이 없으면 지연로딩으로 쿼리 1+N+N 번 호출
+    //  @FetchPlan 의 member, delivery 는 루트의 ToOne 이므로 엔티티 그래프로 조인해서 쿼리 1번
+    @FetchPlan({"member", "delivery"})
     @GetMapping("/api/v2/simple-orders")
     public List<SimpleOrderDTO> ordersV2() {
-        List<Order> orders = orderRepository.findAllByCriteria(new OrderSearch());
+        List<Order> orders = orderRepository.findAllByCriteria(OrderSearch.unpaged());
         return orders.stream()
                 .map(SimpleOrderDTO::new)
                 .collect(Collectors.toList());
@@ -69,6 +78,7 @@ public class OrderSimpleApiController {
     //V3. 엔티티를 조회해서 DTO 로 변환 (fetch join 사용)
     //  fetch join 으로 쿼리 1번 호출
     //  참고: fetch join 에 대한 자세한 내용은 JPA 기본편 참고 (진짜 중요!!)
+    @SqlBudget(statements = 1)
     @GetMapping("/api/v3/simple-orders")
     public List<SimpleOrderDTO> ordersv3() {
         return orderRepository.findAllWithMemberDelivery().stream()
@@ -79,8 +89,22 @@ public class OrderSimpleApiController {
     //V4. JPA 에서 DTO 로 바로 조회
     //  쿼리 1번 호출
     //  select 절에서 원하는 데이터만 선택해서 조회
+    @SqlBudget(statements = 1)
     @GetMapping("/api/v4/simple-orders")
     public List<OrderSimpleQueryDTO> ordersV4() {
         return orderRepository.findOrderDTOs();
     }
+
+    //V5. JdbcTemplate + RowMapper 로 DTO 바로 조회
+    //  엔티티도, JPQL new 명령어도 거치지 않고 필요한 컬럼만 SQL 로 조회
+    //  order_id 기준 keyset 페이징 (lastOrderId 이후부터 limit 건, limit 은 1 ~ PageLimit.MAX)
+    //  전략별 row 당 비용은 SimpleOrderStrategyBenchmark 참고
+    @SqlBudget(statements = 1)
+    @GetMapping("/api/v5/simple-orders")
+    public List<OrderSimpleQueryDTO> ordersV5(
+            @RequestParam(value = "lastOrderId", required = false) Long lastOrderId,
+            @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        PageLimit.check(limit);
+        return orderSimpleQueryJdbcRepository.findPage(lastOrderId, limit);
+    }
 }
@@ -0,0 +1,53 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.monitoring.SqlBudget;
+import jpabook.jpashop.repository.sales.DailySalesDTO;
+import jpabook.jpashop.repository.sales.ItemSalesDTO;
+import jpabook.jpashop.repository.sales.MemberSalesDTO;
+import jpabook.jpashop.service.query.SalesQueryService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.util.List;
+
+//매출 대시보드 API (일별 롤업 조회)
+//  기간: from ~ to (yyyy-MM-dd, 양 끝 포함, 주문일 기준, 취소 주문 제외)
+@RestController
+@RequiredArgsConstructor
+public class SalesApiController {
+
+    private final SalesQueryService salesQueryService;
+
+    //상품별 매출 순위
+    @SqlBudget(statements = 1)
+    @GetMapping("/api/v1/sales/items")
+    public List<ItemSalesDTO> itemSales(
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        return salesQueryService.findItemSales(from, to, limit);
+    }
+
+    //회원별 매출 순위
+    @SqlBudget(statements = 1)
+    @GetMapping("/api/v1/sales/members")
+    public List<MemberSalesDTO> memberSales(
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        return salesQueryService.findMemberSales(from, to, limit);
+    }
+
+    //일별 전체 매출
+    @SqlBudget(statements = 1)
+    @GetMapping("/api/v1/sales/daily")
+    public List<DailySalesDTO> dailySales(
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return salesQueryService.findDailySales(from, to);
+    }
+}
@@ -0,0 +1,51 @@
+package jpabook.jpashop.cache;
+
+import org.springframework.boot.autoconfigure.cache.CacheProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+//캐시 제거(@CacheEvict)를 트랜잭션 커밋 후로 미룬다.
+//  @CacheEvict 는 메소드가 끝날 때 실행되는데, @Transactional 커밋은 그 바깥에서 일어난다.
+//  그 사이에 다른 요청이 캐시를 다시 채우면 커밋 전(이전) 값이 캐시에 남는다. (만료 시간까지 이전 값 조회)
+//  -> evict, clear 는 TransactionAwareCacheDecorator 로 afterCommit 에 실행 (롤백되면 실행하지 않는다)
+//  -> put 은 바로 반영한다. @Cacheable 조회는 자기 읽기 전용 트랜잭션에서 커밋된 값만 읽으므로 미룰 필요가 없다.
+//  설정은 스프링 부트와 같이 spring.cache.cache-names, spring.cache.caffeine.spec 을 사용한다.
+@Configuration
+@EnableConfigurationProperties(CacheProperties.class)
+public class CacheConfig {
+
+    @Bean
+    public CacheManager cacheManager(CacheProperties cacheProperties) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager() {
+            @Override
+            protected Cache adaptCaffeineCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache) {
+                return new EvictAfterCommitCache(super.adaptCaffeineCache(name, cache));
+            }
+        };
+        String spec = cacheProperties.getCaffeine().getSpec();
+        if (StringUtils.hasText(spec)) {
+            cacheManager.setCacheSpecification(spec);
+        }
+        cacheManager.setCacheNames(cacheProperties.getCacheNames());
+        return cacheManager;
+    }
+
+    //TransactionAwareCacheDecorator 는 put 도 커밋 후로 미루므로 put 만 바로 반영한다.
+    static class EvictAfterCommitCache extends TransactionAwareCacheDecorator {
+
+        EvictAfterCommitCache(Cache targetCache) {
+            super(targetCache);
+        }
+
+        @Override
+        public void put(Object key, Object value) {
+            getTargetCache().put(key, value);
+        }
+    }
+}
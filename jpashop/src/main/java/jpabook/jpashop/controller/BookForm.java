@@ -7,10 +7,18 @@ import lombok.Setter;
 public class BookForm {
 
     private Long id;
+    private Long version;
     private String name;
     private int price;
     private int stockQuantity;
 
     private String author;
     private String isbn;
+
+    //수정 화면을 열 때의 값 (hidden 필드). 수정 요청에서 이 값과 비교해서 바뀐 필드만 update 한다.
+    private String originalName;
+    private Integer originalPrice;
+    private Integer originalStockQuantity;
+    private String originalAuthor;
+    private String originalIsbn;
 }
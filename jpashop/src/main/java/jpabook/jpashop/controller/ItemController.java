@@ -1,21 +1,28 @@
 package jpabook.jpashop.controller;
 
 import jpabook.jpashop.domain.item.Book;
-import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.repository.ItemChangeSet;
 import jpabook.jpashop.service.ItemService;
+import jpabook.jpashop.service.query.ItemQueryDto;
+import jpabook.jpashop.service.query.ItemQueryService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.ui.ModelMap;
+import org.springframework.util.StringUtils;
+import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Objects;
 
 @Controller
 @RequiredArgsConstructor
 public class ItemController {
 
     private final ItemService itemService;
+    private final ItemQueryService itemQueryService;
 
     @GetMapping("/items/new")
     public String createForm(Model model) {
@@ -38,38 +45,78 @@ public class ItemController {
 
     @GetMapping("/items")
     public String list(Model model) {
-        List<Item> items = itemService.findItems();
+        List<ItemQueryDto> items = itemQueryService.findItems();
         model.addAttribute("items", items);
         return "items/itemList";
     }
 
     @GetMapping("/items/{itemId}/edit")
     public String updateItemForm(@PathVariable("itemId") Long itemId, Model model) {
-        Book item = (Book) itemService.findOne(itemId);
+        //캐시된 값은 version 이 오래됐을 수 있으므로 DB 에서 새로 읽는다.
+        ItemQueryDto item = itemQueryService.findOneForEdit(itemId);
 
         BookForm form = new BookForm();
-        form.setId(item.getId());
-        form.setName(item.getName());
-        form.setPrice(item.getPrice());
-        form.setStockQuantity(item.getStockQuantity());
-        form.setIsbn(item.getIsbn());
+        fill(form, item);
 
         model.addAttribute("form", form);
         return "items/updateItemForm";
     }
 
     @PostMapping("/items/{itemId}/edit")
-    public String updateItem(@PathVariable String itemId, @ModelAttribute("form") BookForm form) {
-
-        Book book = new Book();
-        book.setId(form.getId());
-        book.setName(form.getName());
-        book.setPrice(form.getPrice());
-        book.setStockQuantity(form.getStockQuantity());
-        book.setAuthor(form.getAuthor());
-        book.setIsbn(form.getIsbn());
+    public String updateItem(@PathVariable("itemId") Long itemId, @ModelAttribute("form") BookForm form, BindingResult result) {
+        //수정 화면을 열 때의 값(hidden 필드)과 비교해서 바뀐 필드만 보낸다. -> 조회 없이 update 1번
+        //  화면을 연 뒤 다른 사용자 수정이나 주문으로 상품이 바뀌었으면 version 이 달라서 update 가 충돌로 실패한다.
+        //  hidden 값은 사용자가 바꿀 수 있지만, 잘못 보내도 자기가 입력한 값이 덜 반영될 뿐 다른 변경을 덮어쓰지는 않는다.
+        ItemChangeSet changes = new ItemChangeSet();
+        if (!Objects.equals(form.getOriginalName(), form.getName())) {
+            changes.setName(form.getName());
+        }
+        if (!Objects.equals(form.getOriginalPrice(), form.getPrice())) {
+            changes.setPrice(form.getPrice());
+        }
+        if (!Objects.equals(form.getOriginalStockQuantity(), form.getStockQuantity())) {
+            changes.setStockQuantity(form.getStockQuantity());
+        }
+        //빈 입력은 null (저자, ISBN 지우기)
+        if (!Objects.equals(emptyToNull(form.getOriginalAuthor()), emptyToNull(form.getAuthor()))) {
+            changes.setAuthor(emptyToNull(form.getAuthor()));
+        }
+        if (!Objects.equals(emptyToNull(form.getOriginalIsbn()), emptyToNull(form.getIsbn()))) {
+            changes.setIsbn(emptyToNull(form.getIsbn()));
+        }
 
-        itemService.saveItem(book);
+        try {
+            itemService.updateItem(itemId, form.getVersion(), changes);
+        } catch (OptimisticLockingFailureException e) {
+            //충돌하면 500 대신 최신 값으로 수정 화면을 다시 보여준다.
+            ItemQueryDto current = itemQueryService.findOneForEdit(itemId);
+            if (current == null) {
+                return "redirect:/items";
+            }
+            fill(form, current);
+            result.reject("conflict", "다른 사용자나 주문이 먼저 상품을 변경했습니다. 최신 내용을 확인하고 다시 수정해주세요.");
+            return "items/updateItemForm";
+        }
         return "redirect:/items";
     }
+
+    private void fill(BookForm form, ItemQueryDto item) {
+        form.setId(item.getId());
+        form.setVersion(item.getVersion());
+        form.setName(item.getName());
+        form.setPrice(item.getPrice());
+        form.setStockQuantity(item.getStockQuantity());
+        form.setAuthor(item.getAuthor());
+        form.setIsbn(item.getIsbn());
+
+        form.setOriginalName(item.getName());
+        form.setOriginalPrice(item.getPrice());
+        form.setOriginalStockQuantity(item.getStockQuantity());
+        form.setOriginalAuthor(item.getAuthor());
+        form.setOriginalIsbn(item.getIsbn());
+    }
+
+    private String emptyToNull(String value) {
+        return StringUtils.hasLength(value) ? value : null;
+    }
 }
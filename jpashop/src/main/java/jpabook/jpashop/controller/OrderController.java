@@ -2,11 +2,12 @@ package jpabook.jpashop.controller;
 
 import jpabook.jpashop.domain.Member;
 import jpabook.jpashop.domain.Order;
-import jpabook.jpashop.domain.item.Item;
 import jpabook.jpashop.repository.OrderSearch;
-import jpabook.jpashop.service.ItemService;
+import jpabook.jpashop.repository.support.FetchPlan;
 import jpabook.jpashop.service.MemberService;
 import jpabook.jpashop.service.OrderService;
+import jpabook.jpashop.service.query.ItemQueryDto;
+import jpabook.jpashop.service.query.ItemQueryService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Controller;
 import org.springframework.stereotype.Repository;
@@ -22,12 +23,12 @@ public class OrderController {
 
     private final OrderService orderService;
     private final MemberService memberService;
-    private final ItemService itemService;
+    private final ItemQueryService itemQueryService;
 
     @GetMapping("/order")
     public String createForm(Model model) {
         List<Member> members = memberService.findMembers();
-        List<Item> items = itemService.findItems();
+        List<ItemQueryDto> items = itemQueryService.findItems();
 
         model.addAttribute("members", members);
         model.addAttribute("items", items);
@@ -43,6 +44,7 @@ public class OrderController {
         return "redirect:/orders";
     }
 
+    @FetchPlan({"member", "orderItems.item"})     //orderList.html 에서 사용
     @GetMapping("/orders")
     public String orderList(@ModelAttribute("orderSearch") OrderSearch orderSearch,
                             Model model) {
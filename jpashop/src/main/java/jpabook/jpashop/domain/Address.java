@@ -1,5 +1,6 @@
 package jpabook.jpashop.domain;
 
+import lombok.EqualsAndHashCode;
 import lombok.Getter;
 
 import javax.persistence.Embeddable;
@@ -7,6 +8,7 @@ import javax.persistence.Embedded;
 
 @Embeddable
 @Getter
+@EqualsAndHashCode     //값 타입은 값으로 비교
 public class Address {
     private String city;
     private String street;
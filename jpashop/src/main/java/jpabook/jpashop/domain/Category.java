@@ -1,19 +1,26 @@
 package jpabook.jpashop.domain;
 
 import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.domain.support.PooledLoSequenceGenerator;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.*;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @Entity
 @Getter
 @Setter
 public class Category {
     @Id
-    @GeneratedValue
+    @GeneratedValue(generator = "category_seq_generator")
+    @GenericGenerator(name = "category_seq_generator", strategy = PooledLoSequenceGenerator.STRATEGY,
+            parameters = @Parameter(name = "sequence_name", value = "category_seq"))
     @Column(name = "category_id")
     private Long id;
 
@@ -32,9 +39,37 @@ public class Category {
     @OneToMany(mappedBy = "parent")
     private List<Category> child = new ArrayList<>();
 
+    @OneToMany(mappedBy = "descendant", cascade = CascadeType.PERSIST)
+    private List<CategoryClosure> ancestors = new ArrayList<>();       //모든 상위 카테고리 (closure)
+
+    @OneToMany(mappedBy = "ancestor")
+    private List<CategoryClosure> descendants = new ArrayList<>();     //모든 하위 카테고리 (closure)
+
     //==연관관계 메서드==//
+    //  closure 도 함께 추가: (this 와 this 의 상위 카테고리) x (child 와 child 의 하위 카테고리)
+    //  하위 트리를 다른 부모로 옮기는 것은 지원하지 않는다.
     public void addChildCategory(Category child) {
+        if (child.getParent() != null) {
+            throw new IllegalStateException("이미 상위 카테고리가 있는 카테고리입니다.");
+        }
         this.child.add(child);
         child.setParent(this);
+
+        Map<Category, Integer> uppers = new LinkedHashMap<>();     //카테고리 -> this 까지의 거리
+        uppers.put(this, 0);
+        for (CategoryClosure closure : this.ancestors) {
+            uppers.put(closure.getAncestor(), closure.getDepth());
+        }
+        Map<Category, Integer> lowers = new LinkedHashMap<>();     //카테고리 -> child 로부터의 거리
+        lowers.put(child, 0);
+        for (CategoryClosure closure : child.descendants) {
+            lowers.put(closure.getDescendant(), closure.getDepth());
+        }
+
+        uppers.forEach((upper, upperDepth) -> lowers.forEach((lower, lowerDepth) -> {
+            CategoryClosure closure = new CategoryClosure(upper, lower, upperDepth + 1 + lowerDepth);
+            upper.descendants.add(closure);
+            lower.ancestors.add(closure);
+        }));
     }
 }
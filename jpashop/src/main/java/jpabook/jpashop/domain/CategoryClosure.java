@@ -0,0 +1,46 @@
+package jpabook.jpashop.domain;
+
+import jpabook.jpashop.domain.support.PooledLoSequenceGenerator;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+
+import javax.persistence.*;
+
+//카테고리 closure table
+//  (상위 카테고리, 하위 카테고리, 거리) 를 모든 조상-자손 쌍에 대해 저장한다. (자기 자신은 저장하지 않는다)
+//  -> 하위 카테고리 전체를 트리 깊이와 관계없이 쿼리 1번으로 조회할 수 있다.
+//  Category.addChildCategory 가 유지한다.
+@Entity
+@Table(name = "category_closure",
+        uniqueConstraints = @UniqueConstraint(name = "uk_category_closure", columnNames = {"ancestor_id", "descendant_id"}),
+        indexes = @Index(name = "idx_category_closure_descendant", columnList = "descendant_id"))
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class CategoryClosure {
+
+    @Id
+    @GeneratedValue(generator = "category_closure_seq_generator")
+    @GenericGenerator(name = "category_closure_seq_generator", strategy = PooledLoSequenceGenerator.STRATEGY,
+            parameters = @Parameter(name = "sequence_name", value = "category_closure_seq"))
+    @Column(name = "category_closure_id")
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "ancestor_id")
+    private Category ancestor;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "descendant_id")
+    private Category descendant;
+
+    private int depth;      //ancestor 에서 descendant 까지의 거리 (부모 = 1)
+
+    CategoryClosure(Category ancestor, Category descendant, int depth) {
+        this.ancestor = ancestor;
+        this.descendant = descendant;
+        this.depth = depth;
+    }
+}
@@ -0,0 +1,39 @@
+package jpabook.jpashop.domain;
+
+import lombok.AccessLevel;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.time.LocalDate;
+
+//일별 상품 매출 롤업 (주문일 기준, 취소된 주문은 빠진다)
+//  OrderSalesRollup 이 주문/취소 트랜잭션 안에서 증감분만 반영한다. (엔티티로는 조회만)
+@Entity
+@Table(name = "daily_item_sales")
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class DailyItemSales {
+
+    @EmbeddedId
+    private Key id;
+
+    private long orderCount;        //주문상품 수
+    private long quantity;          //주문 수량 합계
+    private long revenue;           //orderPrice * count 합계
+
+    @Embeddable
+    @Getter
+    @EqualsAndHashCode
+    @NoArgsConstructor(access = AccessLevel.PROTECTED)
+    public static class Key implements Serializable {
+
+        @Column(name = "sales_date")
+        private LocalDate salesDate;
+
+        @Column(name = "item_id")
+        private Long itemId;
+    }
+}
@@ -1,20 +1,32 @@
 package jpabook.jpashop.domain;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import jpabook.jpashop.domain.support.PooledLoSequenceGenerator;
+import jpabook.jpashop.repository.support.MemberNameFilterListener;
+import jpabook.jpashop.repository.support.MemberNameIndexListener;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.*;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = Member.NAME_UNIQUE_CONSTRAINT, columnNames = "name"))    //중복 가입 방지 + 이름 검색 인덱스
+@EntityListeners({MemberNameIndexListener.class,        //이름 부분 일치 검색 색인
+        MemberNameFilterListener.class})                //가입 시 중복 이름 확인용 Bloom filter
 @Getter
 @Setter
 public class Member {
 
+    public static final String NAME_UNIQUE_CONSTRAINT = "uk_member_name";
+
     @Id
-    @GeneratedValue
+    @GeneratedValue(generator = "member_seq_generator")
+    @GenericGenerator(name = "member_seq_generator", strategy = PooledLoSequenceGenerator.STRATEGY,
+            parameters = @Parameter(name = "sequence_name", value = "member_seq"))
     @Column(name = "member_id")
     private Long id;
 
@@ -1,10 +1,13 @@
 package jpabook.jpashop.domain;
 
+import jpabook.jpashop.domain.support.PooledLoSequenceGenerator;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import net.bytebuddy.asm.Advice;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.*;
 import java.time.LocalDateTime;
@@ -12,13 +15,16 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders",
+        indexes = @Index(name = "idx_orders_order_date_id", columnList = "orderDate, order_id"))    //keyset 페이징용
 @Getter
 @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 public class Order {
     @Id
-    @GeneratedValue
+    @GeneratedValue(generator = "order_seq_generator")
+    @GenericGenerator(name = "order_seq_generator", strategy = PooledLoSequenceGenerator.STRATEGY,
+            parameters = @Parameter(name = "sequence_name", value = "orders_seq"))
     @Column(name = "order_id")
     private Long id;
 
@@ -70,14 +76,19 @@ public class Order {
 
     //==비즈니스 로직==//
     public void cancel(){
+        markCanceled();
+        for (OrderItem orderItem: orderItems ) {
+            orderItem.cancel();
+        }
+    }
+
+    //상태만 취소로 변경 (재고 복구는 호출하는 쪽에서 처리)
+    public void markCanceled() {
         if (delivery.getStatus() == DeliveryStatus.COMP) {
             throw new IllegalStateException("이미 배송완료된 상품은 취소가 불가능합니다.");
         }
 
         this.setStatus(OrderStatus.CANCEL);
-        for (OrderItem orderItem: orderItems ) {
-            orderItem.cancel();
-        }
     }
 
     //==조회 로직==//
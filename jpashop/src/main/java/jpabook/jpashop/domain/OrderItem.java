@@ -2,11 +2,14 @@ package jpabook.jpashop.domain;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.domain.support.PooledLoSequenceGenerator;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import org.aspectj.weaver.ast.Or;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.*;
 
@@ -17,7 +20,9 @@ import javax.persistence.*;
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 public class OrderItem {
     @Id
-    @GeneratedValue
+    @GeneratedValue(generator = "order_item_seq_generator")
+    @GenericGenerator(name = "order_item_seq_generator", strategy = PooledLoSequenceGenerator.STRATEGY,
+            parameters = @Parameter(name = "sequence_name", value = "order_item_seq"))
     @Column(name = "order_item_id")
     private Long id;
 
@@ -43,6 +48,15 @@ public class OrderItem {
         item.removeStock(count);
         return orderItem;
     }
+
+    //재고는 StockReservationEngine 에서 이미 예약한 경우 (엔티티 재고는 건드리지 않는다)
+    public static OrderItem createReservedOrderItem(Item item, int orderPrice, int count) {
+        OrderItem orderItem = new OrderItem();
+        orderItem.setItem(item);
+        orderItem.setOrderPrice(orderPrice);
+        orderItem.setCount(count);
+        return orderItem;
+    }
     //==비즈니스 로직==//
     public void cancel() {
         getItem().addStock(count);
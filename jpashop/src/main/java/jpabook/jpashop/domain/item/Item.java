@@ -1,9 +1,13 @@
 package jpabook.jpashop.domain.item;
 
 import jpabook.jpashop.domain.Category;
+import jpabook.jpashop.domain.support.PooledLoSequenceGenerator;
 import jpabook.jpashop.exception.NotEnoughStockException;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.*;
 import java.util.ArrayList;
@@ -12,11 +16,18 @@ import java.util.List;
 @Entity
 @Inheritance(strategy = InheritanceType.SINGLE_TABLE)
 @DiscriminatorColumn(name = "dtype")
+@DynamicUpdate      //변경 감지 update 도 바뀐 컬럼만 (하위 엔티티에도 붙인다)
 @Getter
 @Setter
 public abstract class Item {
+
+    //ItemBulkRepository 가 같은 시퀀스에서 같은 방식(pooled-lo)으로 id 를 할당한다.
+    public static final String SEQUENCE_NAME = "item_seq";
+
     @Id
-    @GeneratedValue
+    @GeneratedValue(generator = "item_seq_generator")
+    @GenericGenerator(name = "item_seq_generator", strategy = PooledLoSequenceGenerator.STRATEGY,
+            parameters = @Parameter(name = "sequence_name", value = SEQUENCE_NAME))
     @Column(name = "item_id")
     private Long id;
 
@@ -24,6 +35,12 @@ public abstract class Item {
     private int price;
     private int stockQuantity;
 
+    //낙관적 락 (상품 수정 화면에서 읽은 버전으로만 수정 가능)
+    //  StockReservationEngine 의 재고 차감 batch update 는 버전을 올리지 않는다. (재고 예약을 켠 경우에만 주문과 수정 화면이 충돌하지 않는다)
+    //  재고 예약을 끈 기본 설정에서는 removeStock/addStock 이 변경 감지로 버전을 올리므로, 수정 중에 주문이 들어오면 수정은 충돌로 실패한다.
+    @Version
+    private Long version;
+
     @ManyToMany(mappedBy = "items")
     private List<Category> categories = new ArrayList<>();
 
@@ -0,0 +1,35 @@
+package jpabook.jpashop.domain.support;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.config.spi.StandardConverters;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.util.Properties;
+
+//엔티티별 시퀀스 + pooled-lo id 생성기
+//  @GeneratedValue 만 쓰면 모든 엔티티가 hibernate_sequence 하나를 같이 쓰고, insert 마다 시퀀스를 1번 호출한다.
+//  엔티티마다 시퀀스를 따로 두고, 시퀀스 값 v 하나로 [v, v + allocation-size) 를 메모리에서 할당한다. (pooled-lo)
+//      -> 시퀀스 호출이 allocation-size 건당 1번, insert 는 hibernate.jdbc.batch_size 로 묶인다.
+//  allocation-size: spring.jpa.properties.jpashop.id.allocation-size (기본 50)
+//      -ddl-auto 로 만드는 시퀀스도 같은 increment 로 생성된다. 운영 DB 에서 바꾸려면 시퀀스 increment 도 함께 바꿔야 한다.
+//      -애플리케이션을 재시작하면 할당받고 안 쓴 id 는 버려진다. (id 에 구멍이 생길 수 있음)
+//  사용: @GeneratedValue(generator = "x") + @GenericGenerator(name = "x", strategy = PooledLoSequenceGenerator.STRATEGY,
+//                                         parameters = @Parameter(name = "sequence_name", value = "x_seq"))
+public class PooledLoSequenceGenerator extends SequenceStyleGenerator {
+
+    public static final String STRATEGY = "jpabook.jpashop.domain.support.PooledLoSequenceGenerator";
+    public static final String ALLOCATION_SIZE_SETTING = "jpashop.id.allocation-size";
+    public static final int DEFAULT_ALLOCATION_SIZE = 50;
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        int allocationSize = serviceRegistry.getService(ConfigurationService.class)
+                .getSetting(ALLOCATION_SIZE_SETTING, StandardConverters.INTEGER, DEFAULT_ALLOCATION_SIZE);
+        params.putIfAbsent(INCREMENT_PARAM, String.valueOf(allocationSize));
+        params.setProperty(OPT_PARAM, "pooled-lo");
+        super.configure(type, params, serviceRegistry);
+    }
+}
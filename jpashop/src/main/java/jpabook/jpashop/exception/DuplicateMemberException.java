@@ -0,0 +1,20 @@
+package jpabook.jpashop.exception;
+
+public class DuplicateMemberException extends IllegalStateException {
+
+    public DuplicateMemberException() {
+        super();
+    }
+
+    public DuplicateMemberException(String message) {
+        super(message);
+    }
+
+    public DuplicateMemberException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public DuplicateMemberException(Throwable cause) {
+        super(cause);
+    }
+}
@@ -0,0 +1,21 @@
+package jpabook.jpashop.monitoring;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+//API 별 SQL 실행 예산
+//  요청 하나(응답 직렬화 중 지연 로딩 포함)에서 실행할 수 있는 SQL 수, 읽을 수 있는 row 수의 상한
+//  초과하면 SqlStatementFilter 가 로그와 메트릭을 남기고,
+//  jpashop.sql.budget.fail-on-exceed=true 이면 SqlBudgetExceededException 을 던진다. (테스트에서 사용)
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface SqlBudget {
+
+    //최대 SQL 실행 수 (-1: 제한 없음)
+    int statements() default -1;
+
+    //최대 조회 row 수 (-1: 제한 없음)
+    int rows() default -1;
+}
@@ -0,0 +1,115 @@
+package jpabook.jpashop.monitoring;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jpabook.jpashop.exception.SqlBudgetExceededException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Map;
+
+//HTTP 요청 단위 SQL 계측
+//  필터는 OSIV 인터셉터보다 바깥에서 동작하므로, 응답 직렬화 중 지연 로딩으로 실행된 SQL 까지 센다.
+//  -요청별 SQL 수, row 수, 시간을 Micrometer 에 기록 (tag: uri 패턴, method)
+//      jpashop.sql.request.statements, jpashop.sql.request.rows, jpashop.sql.request.time
+//  -같은 모양의 SQL 이 n-plus-one-threshold 번 이상 반복되면 N+1 후보로 로그 + jpashop.sql.n-plus-one 카운터
+//  -핸들러에 @SqlBudget 이 있으면 예산 초과 여부 확인 -> 로그 + jpashop.sql.budget.exceeded 카운터
+//      fail-on-exceed=true 면 예외를 던져서 테스트를 실패시킨다.
+@Slf4j
+@Component
+public class SqlStatementFilter extends OncePerRequestFilter {
+
+    private final SqlStatementListener sqlStatementListener;
+    private final MeterRegistry meterRegistry;
+    private final int nPlusOneThreshold;
+    private final boolean failOnExceed;
+
+    public SqlStatementFilter(SqlStatementListener sqlStatementListener,
+                              MeterRegistry meterRegistry,
+                              @Value("${jpashop.sql.n-plus-one-threshold:5}") int nPlusOneThreshold,
+                              @Value("${jpashop.sql.budget.fail-on-exceed:false}") boolean failOnExceed) {
+        this.sqlStatementListener = sqlStatementListener;
+        this.meterRegistry = meterRegistry;
+        this.nPlusOneThreshold = nPlusOneThreshold;
+        this.failOnExceed = failOnExceed;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        SqlStatistics statistics = sqlStatementListener.open();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            statistics.close();
+        }
+
+        if (statistics.getStatements() == 0) {
+            return;
+        }
+        String uri = uriPattern(request);
+        Tags tags = Tags.of("uri", uri, "method", request.getMethod());
+        meterRegistry.summary("jpashop.sql.request.statements", tags).record(statistics.getStatements());
+        meterRegistry.summary("jpashop.sql.request.rows", tags).record(statistics.getRows());
+        meterRegistry.summary("jpashop.sql.request.time", tags).record(statistics.getElapsedMillis());
+
+        Map<String, Integer> candidates = statistics.getNPlusOneCandidates(nPlusOneThreshold);
+        if (!candidates.isEmpty()) {
+            meterRegistry.counter("jpashop.sql.n-plus-one", tags).increment();
+            candidates.forEach((shape, count) ->
+                    log.warn("N+1 candidate. uri={}, count={}, sql={}", uri, count, shape));
+        }
+
+        checkBudget(request, uri, tags, statistics);
+    }
+
+    private void checkBudget(HttpServletRequest request, String uri, Tags tags, SqlStatistics statistics) {
+        SqlBudget budget = findBudget(request);
+        if (budget == null) {
+            return;
+        }
+
+        boolean statementsExceeded = budget.statements() >= 0 && statistics.getStatements() > budget.statements();
+        boolean rowsExceeded = budget.rows() >= 0 && statistics.getRows() > budget.rows();
+        if (!statementsExceeded && !rowsExceeded) {
+            return;
+        }
+
+        String message = String.format("SQL 예산 초과. uri=%s, statements=%d/%d, rows=%d/%d",
+                uri, statistics.getStatements(), budget.statements(), statistics.getRows(), budget.rows());
+        meterRegistry.counter("jpashop.sql.budget.exceeded", tags).increment();
+        if (failOnExceed) {
+            throw new SqlBudgetExceededException(message);
+        }
+        log.warn(message);
+    }
+
+    private SqlBudget findBudget(HttpServletRequest request) {
+        Object handler = request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE);
+        if (!(handler instanceof HandlerMethod)) {
+            return null;
+        }
+        HandlerMethod handlerMethod = (HandlerMethod) handler;
+        SqlBudget budget = AnnotatedElementUtils.findMergedAnnotation(handlerMethod.getMethod(), SqlBudget.class);
+        if (budget != null) {
+            return budget;
+        }
+        return AnnotatedElementUtils.findMergedAnnotation(handlerMethod.getBeanType(), SqlBudget.class);
+    }
+
+    //태그 수가 늘어나지 않도록 실제 경로 대신 매핑된 패턴 사용
+    private String uriPattern(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? pattern.toString() : "UNKNOWN";
+    }
+}
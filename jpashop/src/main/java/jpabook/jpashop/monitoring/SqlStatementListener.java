@@ -0,0 +1,95 @@
+package jpabook.jpashop.monitoring;
+
+import com.p6spy.engine.common.ResultSetInformation;
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+//SQL 실행 계측
+//  p6spy-spring-boot-starter 는 JdbcEventListener 빈을 자동으로 등록한다.
+//  -트랜잭션별: @Transactional 메서드 이름(트랜잭션 이름)으로 태그를 달아 Micrometer 에 누적
+//      jpashop.sql.statements, jpashop.sql.rows, jpashop.sql.time  (tag: transaction)
+//  -범위별: open() 으로 연 SqlStatistics 에 같은 스레드의 SQL 을 기록 (SqlStatementFilter 가 요청마다 연다)
+//  ParallelQueryExecutor, InClauseBatchLoader 처럼 다른 스레드에서 실행하는 작업은 propagate 로 감싸서 호출한 스레드의 범위에 기록한다.
+@Component
+@RequiredArgsConstructor
+public class SqlStatementListener extends SimpleJdbcEventListener {
+
+    private static final String NO_TRANSACTION = "none";
+
+    private final ThreadLocal<SqlStatistics> current = new ThreadLocal<>();
+    private final MeterRegistry meterRegistry;
+
+    //현재 스레드에 새 측정 범위를 연다. (try-with-resources 로 닫는다)
+    public SqlStatistics open() {
+        SqlStatistics parent = current.get();
+        SqlStatistics statistics = new SqlStatistics(parent, () -> {
+            if (parent == null) {
+                current.remove();
+            } else {
+                current.set(parent);
+            }
+        });
+        current.set(statistics);
+        return statistics;
+    }
+
+    //task 를 실행하는 동안 지금 스레드의 측정 범위를 실행 스레드에 붙인다. (범위가 없으면 그대로 반환)
+    public Runnable propagate(Runnable task) {
+        SqlStatistics statistics = current.get();
+        if (statistics == null) {
+            return task;
+        }
+        return () -> {
+            SqlStatistics previous = current.get();
+            current.set(statistics);
+            try {
+                task.run();
+            } finally {
+                if (previous == null) {
+                    current.remove();
+                } else {
+                    current.set(previous);
+                }
+            }
+        };
+    }
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        Tags tags = Tags.of("transaction", transactionName());
+        meterRegistry.counter("jpashop.sql.statements", tags).increment();
+        meterRegistry.timer("jpashop.sql.time", tags).record(timeElapsedNanos, TimeUnit.NANOSECONDS);
+
+        SqlStatistics statistics = current.get();
+        if (statistics != null) {
+            statistics.recordStatement(statementInformation.getSql(), timeElapsedNanos);
+        }
+    }
+
+    @Override
+    public void onAfterResultSetNext(ResultSetInformation resultSetInformation, long timeElapsedNanos,
+                                     boolean hasNext, SQLException e) {
+        if (!hasNext) {
+            return;
+        }
+        meterRegistry.counter("jpashop.sql.rows", "transaction", transactionName()).increment();
+
+        SqlStatistics statistics = current.get();
+        if (statistics != null) {
+            statistics.recordRow();
+        }
+    }
+
+    private String transactionName() {
+        String name = TransactionSynchronizationManager.getCurrentTransactionName();
+        return name != null ? name : NO_TRANSACTION;
+    }
+}
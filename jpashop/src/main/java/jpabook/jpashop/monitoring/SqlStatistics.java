@@ -0,0 +1,87 @@
+package jpabook.jpashop.monitoring;
+
+import lombok.Getter;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+//한 범위(HTTP 요청, 테스트 코드 블록)에서 실행된 SQL 통계
+//  SqlStatementListener 가 같은 스레드에서 실행된 SQL 을 기록한다.
+//  범위는 중첩될 수 있고, 안쪽 범위에 기록하면 바깥 범위에도 함께 기록된다.
+//  SqlStatementListener.propagate 로 여러 스레드가 같은 범위에 기록할 수 있으므로 기록/조회는 동기화한다.
+@Getter
+public class SqlStatistics implements AutoCloseable {
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+\\b");
+    private static final Pattern IN_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final SqlStatistics parent;
+    private final Runnable onClose;
+
+    private int statements;
+    private long rows;
+    private long elapsedNanos;
+    private final Map<String, Integer> shapes = new LinkedHashMap<>();     //SQL 모양 -> 실행 수
+
+    SqlStatistics(SqlStatistics parent, Runnable onClose) {
+        this.parent = parent;
+        this.onClose = onClose;
+    }
+
+    synchronized void recordStatement(String sql, long nanos) {
+        statements++;
+        elapsedNanos += nanos;
+        shapes.merge(shapeOf(sql), 1, Integer::sum);
+        if (parent != null) {
+            parent.recordStatement(sql, nanos);
+        }
+    }
+
+    synchronized void recordRow() {
+        rows++;
+        if (parent != null) {
+            parent.recordRow();
+        }
+    }
+
+    public synchronized int getStatements() {
+        return statements;
+    }
+
+    public synchronized long getRows() {
+        return rows;
+    }
+
+    public synchronized long getElapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+    }
+
+    //같은 모양의 SQL 이 threshold 번 이상 실행됐으면 N+1 후보
+    public synchronized Map<String, Integer> getNPlusOneCandidates(int threshold) {
+        Map<String, Integer> candidates = new LinkedHashMap<>();
+        shapes.forEach((shape, count) -> {
+            if (count >= threshold) {
+                candidates.put(shape, count);
+            }
+        });
+        return candidates;
+    }
+
+    @Override
+    public void close() {
+        onClose.run();
+    }
+
+    //파라미터 값, IN 절 길이를 지운 SQL 모양
+    //  select ... where o.order_id=?  과  select ... where o.order_id in (?, ?, ?) 는 각각 한 가지 모양
+    static String shapeOf(String sql) {
+        String shape = STRING_LITERAL.matcher(sql).replaceAll("?");
+        shape = NUMBER_LITERAL.matcher(shape).replaceAll("?");
+        shape = IN_LIST.matcher(shape).replaceAll("(?)");
+        return WHITESPACE.matcher(shape).replaceAll(" ").trim();
+    }
+}
@@ -0,0 +1,56 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.domain.Category;
+import jpabook.jpashop.domain.item.Item;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class CategoryRepository {
+
+    private final EntityManager em;
+
+    public void save(Category category) {
+        em.persist(category);
+    }
+
+    public Category findOne(Long id) {
+        return em.find(Category.class, id);
+    }
+
+    //(id, 이름, 부모 id) 전체 조회
+    public List<Object[]> findAllNodes() {
+        return em.createQuery(
+                "select c.id, c.name, p.id from Category c left join c.parent p order by c.id", Object[].class)
+                .getResultList();
+    }
+
+    //자신과 모든 하위 카테고리 id (closure table 조회 1번)
+    public List<Long> findDescendantIds(Long categoryId) {
+        List<Long> ids = new ArrayList<>();
+        ids.add(categoryId);
+        ids.addAll(em.createQuery(
+                "select cc.descendant.id from CategoryClosure cc where cc.ancestor.id = :categoryId", Long.class)
+                .setParameter("categoryId", categoryId)
+                .getResultList());
+        return ids;
+    }
+
+    //카테고리들에 속한 상품 페이징 (category_item 조인, 여러 카테고리에 속한 상품은 한 번만)
+    public List<Item> findItems(Collection<Long> categoryIds, int offset, int limit) {
+        return em.createQuery(
+                "select i from Item i" +
+                        " where i.id in (select ci.id from Category c join c.items ci where c.id in :categoryIds)" +
+                        " order by i.id", Item.class)
+                .setParameter("categoryIds", categoryIds)
+                .setFirstResult(offset)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+}
@@ -0,0 +1,82 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.domain.item.Item;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.id.enhanced.PooledLoOptimizer;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManagerFactory;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+//상품 대량 등록 (JDBC batch insert)
+//  em.persist 는 엔티티마다 영속성 컨텍스트에 쌓이고 변경 감지 대상이 된다. 대량 등록에는 필요 없는 비용이다.
+//  insert 를 JdbcTemplate.batchUpdate 로 묶어서 보낸다. (MySQL 은 rewriteBatchedStatements=true 필요)
+//  id 는 Item 매핑과 같은 pooled-lo 방식으로 시퀀스에서 블록 단위로 할당하므로 JPA 로 저장한 상품과 겹치지 않는다.
+@Repository
+public class ItemBulkRepository {
+
+    private static final String INSERT_SQL =
+            "insert into item (item_id, dtype, name, price, stock_quantity, author, isbn, artist, etc, director, actor, version)" +
+                    " values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String nextIdSql;
+    private final int allocationSize;
+
+    //Item 매핑의 id 생성기에서 allocation size 를 가져온다. (jpashop.id.allocation-size 설정)
+    public ItemBulkRepository(JdbcTemplate jdbcTemplate, EntityManagerFactory emf) {
+        SessionFactoryImplementor sessionFactory = emf.unwrap(SessionFactoryImplementor.class);
+        SequenceStyleGenerator generator = (SequenceStyleGenerator) sessionFactory.getMetamodel()
+                .entityPersister(Item.class).getIdentifierGenerator();
+        if (!(generator.getOptimizer() instanceof PooledLoOptimizer)) {
+            throw new IllegalStateException("Item id 생성기는 pooled-lo 여야 합니다. optimizer=" + generator.getOptimizer());
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.nextIdSql = sessionFactory.getJdbcServices().getDialect()
+                .getSequenceNextValString(Item.SEQUENCE_NAME);
+        this.allocationSize = generator.getOptimizer().getIncrementSize();
+    }
+
+    public void insert(List<ItemImportRow> rows) {
+        long[] ids = allocateIds(rows.size());
+        jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ItemImportRow row = rows.get(i);
+                ps.setLong(1, ids[i]);
+                ps.setString(2, row.getType().getDiscriminator());
+                ps.setString(3, row.getName());
+                ps.setInt(4, row.getPrice());
+                ps.setInt(5, row.getStockQuantity());
+                ps.setString(6, row.getAuthor());
+                ps.setString(7, row.getIsbn());
+                ps.setString(8, row.getArtist());
+                ps.setString(9, row.getEtc());
+                ps.setString(10, row.getDirector());
+                ps.setString(11, row.getActor());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return rows.size();
+            }
+        });
+    }
+
+    //시퀀스 값 v 하나로 [v, v + allocationSize) 사용
+    private long[] allocateIds(int count) {
+        long[] ids = new long[count];
+        for (int i = 0; i < count; i += allocationSize) {
+            Long base = jdbcTemplate.queryForObject(nextIdSql, Long.class);
+            for (int j = 0; j < allocationSize && i + j < count; j++) {
+                ids[i + j] = base + j;
+            }
+        }
+        return ids;
+    }
+}
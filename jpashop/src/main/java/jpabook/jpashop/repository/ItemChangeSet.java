@@ -0,0 +1,56 @@
+package jpabook.jpashop.repository;
+
+import lombok.Getter;
+
+//상품 부분 수정 내용
+//  setter 를 호출한 필드만 update 한다. (author, isbn 은 Book 전용)
+//  null 도 값이므로 author, isbn 은 setAuthor(null) 로 지울 수 있다.
+@Getter
+public class ItemChangeSet {
+
+    private String name;
+    private int price;
+    private int stockQuantity;
+
+    private String author;
+    private String isbn;
+
+    private boolean nameChanged;
+    private boolean priceChanged;
+    private boolean stockQuantityChanged;
+    private boolean authorChanged;
+    private boolean isbnChanged;
+
+    public void setName(String name) {
+        this.name = name;
+        this.nameChanged = true;
+    }
+
+    public void setPrice(int price) {
+        this.price = price;
+        this.priceChanged = true;
+    }
+
+    public void setStockQuantity(int stockQuantity) {
+        this.stockQuantity = stockQuantity;
+        this.stockQuantityChanged = true;
+    }
+
+    public void setAuthor(String author) {
+        this.author = author;
+        this.authorChanged = true;
+    }
+
+    public void setIsbn(String isbn) {
+        this.isbn = isbn;
+        this.isbnChanged = true;
+    }
+
+    public boolean isEmpty() {
+        return !nameChanged && !priceChanged && !stockQuantityChanged && !hasBookChanges();
+    }
+
+    public boolean hasBookChanges() {
+        return authorChanged || isbnChanged;
+    }
+}
@@ -0,0 +1,41 @@
+package jpabook.jpashop.repository;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.util.StringUtils;
+
+//상품 일괄 등록 1건 (CSV 1줄 / JSON 객체 1개)
+@Getter @Setter
+public class ItemImportRow {
+
+    private ItemType type;
+    private String name;
+    private int price;
+    private int stockQuantity;
+    private String author;      //Book
+    private String isbn;        //Book
+    private String artist;      //Album
+    private String etc;         //Album
+    private String director;    //Movie
+    private String actor;       //Movie
+
+    public enum ItemType {
+        BOOK("B"), ALBUM("A"), MOVIE("M");
+
+        private final String discriminator;     //item.dtype
+
+        ItemType(String discriminator) {
+            this.discriminator = discriminator;
+        }
+
+        public String getDiscriminator() {
+            return discriminator;
+        }
+    }
+
+    public void validate(long line) {
+        if (type == null || !StringUtils.hasText(name) || price < 0 || stockQuantity < 0) {
+            throw new IllegalArgumentException("잘못된 상품 데이터입니다. line=" + line);
+        }
+    }
+}
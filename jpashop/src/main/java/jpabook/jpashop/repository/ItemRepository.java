@@ -3,9 +3,11 @@ package jpabook.jpashop.repository;
 import jpabook.jpashop.domain.item.Item;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Repository;
-import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
+import javax.persistence.OptimisticLockException;
+import javax.persistence.Query;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -14,11 +16,63 @@ public class ItemRepository {
 
     private final EntityManager em;
 
+    //신규 상품 저장
+    //  준영속 상품을 merge 하면 select 1번 + 모든 컬럼 update 가 나가고, 폼에 없는 필드는 null 로 덮어쓴다.
+    //  수정은 update(id, version, changes) 로 한다.
     public void save(Item item) {
-        if (item.getId() == null) {
-            em.persist(item);
-        }else{
-            em.merge(item);
+        if (item.getId() != null) {
+            throw new IllegalArgumentException("이미 저장된 상품입니다. 수정은 update 를 사용하세요. id=" + item.getId());
+        }
+        em.persist(item);
+    }
+
+    //상품 부분 수정 (낙관적 락)
+    //  조회 없이 바뀐 컬럼만 update 1번: update item set ..., version = version + 1 where item_id = ? and version = ?
+    //  JPQL 은 바뀐 컬럼 조합으로만 달라지므로 Hibernate QueryPlanCache 를 그대로 재사용한다.
+    //  null 도 바인딩한다. (author, isbn 지우기)
+    //  벌크 연산이라 영속성 컨텍스트를 거치지 않는다. 같은 트랜잭션에서 해당 상품 엔티티를 이미 읽었다면 다시 조회해야 한다.
+    public void update(Long id, Long version, ItemChangeSet changes) {
+        StringBuilder jpql = new StringBuilder("update ")
+                .append(changes.hasBookChanges() ? "Book" : "Item")
+                .append(" i set i.version = i.version + 1");
+        if (changes.isNameChanged()) {
+            jpql.append(", i.name = :name");
+        }
+        if (changes.isPriceChanged()) {
+            jpql.append(", i.price = :price");
+        }
+        if (changes.isStockQuantityChanged()) {
+            jpql.append(", i.stockQuantity = :stockQuantity");
+        }
+        if (changes.isAuthorChanged()) {
+            jpql.append(", i.author = :author");
+        }
+        if (changes.isIsbnChanged()) {
+            jpql.append(", i.isbn = :isbn");
+        }
+        jpql.append(" where i.id = :id and i.version = :version");
+
+        Query query = em.createQuery(jpql.toString())
+                .setParameter("id", id)
+                .setParameter("version", version);
+        if (changes.isNameChanged()) {
+            query.setParameter("name", changes.getName());
+        }
+        if (changes.isPriceChanged()) {
+            query.setParameter("price", changes.getPrice());
+        }
+        if (changes.isStockQuantityChanged()) {
+            query.setParameter("stockQuantity", changes.getStockQuantity());
+        }
+        if (changes.isAuthorChanged()) {
+            query.setParameter("author", changes.getAuthor());
+        }
+        if (changes.isIsbnChanged()) {
+            query.setParameter("isbn", changes.getIsbn());
+        }
+
+        if (query.executeUpdate() == 0) {
+            throw new OptimisticLockException("상품이 없거나 다른 사용자가 먼저 수정했습니다. id=" + id + ", version=" + version);
         }
     }
 
@@ -26,6 +80,12 @@ public class ItemRepository {
         return em.find(Item.class, id);
     }
 
+    public List<Item> findAllByIds(Collection<Long> ids) {
+        return em.createQuery("select i from Item i where i.id in :ids", Item.class)
+                .setParameter("ids", ids)
+                .getResultList();
+    }
+
     public List<Item> findAll() {
         return em.createQuery("select i from Item i", Item.class)
                 .getResultList();
@@ -0,0 +1,48 @@
+package jpabook.jpashop.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+//재고 수량만 JDBC 로 직접 다루는 리포지토리
+//  엔티티의 변경 감지는 stock_quantity 를 절대값으로 덮어쓰므로 동시 주문에서 재고가 꼬일 수 있다.
+//  여기서는 차감량(delta)만 원자적으로 반영한다. -> update ... set stock = stock - ? where stock >= ?
+@Repository
+@RequiredArgsConstructor
+public class ItemStockRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public int findStockQuantity(Long itemId) {
+        Integer stockQuantity = jdbcTemplate.queryForObject(
+                "select stock_quantity from item where item_id = ?", Integer.class, itemId);
+        return stockQuantity == null ? 0 : stockQuantity;
+    }
+
+    //deltas: itemId -> 차감할 수량 (음수면 재고 증가)
+    //반환: 재고가 부족해서 반영되지 않은 itemId 목록
+    public List<Long> decreaseStocks(Map<Long, Integer> deltas) {
+        List<Long> itemIds = new ArrayList<>(deltas.keySet());
+        List<Object[]> args = new ArrayList<>();
+        for (Long itemId : itemIds) {
+            int delta = deltas.get(itemId);
+            args.add(new Object[]{delta, itemId, delta});
+        }
+
+        int[] counts = jdbcTemplate.batchUpdate(
+                "update item set stock_quantity = stock_quantity - ?" +
+                        " where item_id = ? and stock_quantity >= ?", args);
+
+        List<Long> failed = new ArrayList<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) {
+                failed.add(itemIds.get(i));
+            }
+        }
+        return failed;
+    }
+}
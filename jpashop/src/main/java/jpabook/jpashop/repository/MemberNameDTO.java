@@ -0,0 +1,16 @@
+package jpabook.jpashop.repository;
+
+import lombok.Getter;
+
+//회원 목록 조회 결과 (엔티티를 로딩하지 않고 id, 이름만 조회)
+@Getter
+public class MemberNameDTO {
+
+    private Long memberId;
+    private String name;
+
+    public MemberNameDTO(Long memberId, String name) {
+        this.memberId = memberId;
+        this.name = name;
+    }
+}
@@ -2,23 +2,36 @@ package jpabook.jpashop.repository;
 
 import jpabook.jpashop.domain.Member;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.annotations.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import javax.persistence.TypedQuery;
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Repository
 @RequiredArgsConstructor
 public class MemberRepository {
 
+    private static final int STREAM_FETCH_SIZE = 500;
+
     private final EntityManager em;
 
     public void save(Member member) {
         em.persist(member);
     }
 
+    //insert 를 바로 실행 (unique 제약 위반을 커밋 전에 확인)
+    public void saveAndFlush(Member member) {
+        em.persist(member);
+        em.flush();
+    }
+
     public Member findOne(Long id) {
         return em.find(Member.class,id);
     }
@@ -28,6 +41,49 @@ public class MemberRepository {
                 .getResultList();
     }
 
+    //회원 목록 keyset 페이징 (member_id 순, lastMemberId 이후부터 limit 건)
+    //  엔티티(orders 프록시 컬렉션, Address)를 만들지 않고 id, 이름만 DTO 로 조회
+    //  lastMemberId 가 null 이면 첫 페이지
+    public List<MemberNameDTO> findNamePage(Long lastMemberId, int limit) {
+        return em.createQuery(
+                        "select new jpabook.jpashop.repository.MemberNameDTO(m.id, m.name)" +
+                                " from Member m" +
+                                " where m.id > :lastMemberId" +
+                                " order by m.id", MemberNameDTO.class)
+                .setParameter("lastMemberId", lastMemberId == null ? 0L : lastMemberId)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    //회원 목록 스트리밍
+    //  forward-only 커서(Stream)로 fetch size 만큼씩 읽으면서 consumer 로 넘긴다. (결과 전체를 List 로 올리지 않음)
+    @Transactional(readOnly = true)
+    public void streamNames(Consumer<MemberNameDTO> consumer) {
+        try (Stream<MemberNameDTO> names = em.createQuery(
+                        "select new jpabook.jpashop.repository.MemberNameDTO(m.id, m.name)" +
+                                " from Member m" +
+                                " order by m.id", MemberNameDTO.class)
+                .setHint(QueryHints.HINT_FETCH_SIZE, STREAM_FETCH_SIZE)
+                .getResultStream()) {
+            names.forEach(consumer);
+        }
+    }
+
+    public List<Member> findAllByIds(Collection<Long> ids) {
+        return em.createQuery("select m from Member m where m.id in :ids", Member.class)
+                .setParameter("ids", ids)
+                .getResultList();
+    }
+
+    //회원 엔티티를 읽지 않고 존재 여부만 확인
+    public boolean existsByName(String name) {
+        return !em.createQuery("select m.id from Member m where m.name = :name", Long.class)
+                .setParameter("name", name)
+                .setMaxResults(1)
+                .getResultList()
+                .isEmpty();
+    }
+
     public List<Member> findByName(String name) {
         return em.createQuery("select m from Member m where m.name = :name", Member.class)
                 .setParameter("name", name)
@@ -0,0 +1,20 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.domain.DeliveryStatus;
+import jpabook.jpashop.domain.OrderStatus;
+import lombok.Getter;
+
+//일괄 취소 대상 검증용 조회 결과 (엔티티를 로딩하지 않고 상태만 조회)
+@Getter
+public class OrderCancelTarget {
+
+    private Long orderId;
+    private OrderStatus orderStatus;
+    private DeliveryStatus deliveryStatus;
+
+    public OrderCancelTarget(Long orderId, OrderStatus orderStatus, DeliveryStatus deliveryStatus) {
+        this.orderId = orderId;
+        this.orderStatus = orderStatus;
+        this.deliveryStatus = deliveryStatus;
+    }
+}
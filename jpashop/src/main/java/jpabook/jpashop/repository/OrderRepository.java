@@ -1,23 +1,33 @@
 package jpabook.jpashop.repository;
 
-import jpabook.jpashop.domain.Member;
 import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderStatus;
 import jpabook.jpashop.repository.order.simplequery.OrderSimpleQueryDTO;
+import jpabook.jpashop.repository.sales.OrderSalesLine;
+import jpabook.jpashop.repository.support.FetchPlanLoader;
+import jpabook.jpashop.repository.support.MemberNameIndex;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.StringUtils;
 
 import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
 import javax.persistence.TypedQuery;
-import javax.persistence.criteria.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Repository
 @RequiredArgsConstructor
 public class OrderRepository {
 
     private final EntityManager em;
+    private final FetchPlanLoader fetchPlanLoader;
+    private final MemberNameIndex memberNameIndex;
 
     public void save(Order order) {
         em.persist(order);
@@ -26,6 +36,19 @@ public class OrderRepository {
     public Order findOne(Long id) {
         return em.find(Order.class, id);
     }
+
+    //취소처럼 상태를 보고 바꾸는 작업은 주문 row 를 잠그고(select ... for update) 조회한다.
+    //  -> 같은 주문을 동시에 취소하면 나중 트랜잭션은 먼저 트랜잭션이 커밋한 상태(CANCEL)를 보게 된다.
+    public Order findOneForUpdate(Long id) {
+        return em.find(Order.class, id, LockModeType.PESSIMISTIC_WRITE);
+    }
+
+    public void lockAll(Collection<Long> orderIds) {
+        em.createQuery("select o from Order o where o.id in :orderIds", Order.class)
+                .setParameter("orderIds", orderIds)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .getResultList();
+    }
 //
 //    public List<Order> findAll(OrderSearch orderSearch) {
 //        String jpql = "select o from Order o join o.member m";
@@ -47,50 +70,136 @@ public class OrderRepository {
 //                .getResultList();
 //    }
 
-    //JPA Criteria
-    public List<Order> findAllByCriteria(OrderSearch orderSearch) {
-        CriteriaBuilder cb = em.getCriteriaBuilder();
-        CriteriaQuery<Order> cq = cb.createQuery(Order.class);
-        Root<Order> o = cq.from(Order.class);
-        Join<Order, Member> m = o.join("member", JoinType.INNER);
+    //엔티티 목록 조회 메서드는 읽기 전용 트랜잭션 안에서 fetch plan(@FetchPlan)까지 로딩해서 반환한다.
+    //  -> open-in-view: false 여도 컨트롤러/뷰에서 필요한 연관관계를 사용할 수 있다.
+
+    //주문 검색
+    //  매번 CriteriaQuery 를 만들면 Hibernate 가 요청마다 JPQL 로 렌더링하고 다시 파싱한다.
+    //  검색 조건의 모양(상태 유무, 이름 유무, 회원 id 후보 유무)은 몇 가지뿐이므로 모양별 JPQL 을 미리 만들어 두고 값은 파라미터로 바인딩한다.
+    //      -> Hibernate QueryPlanCache(JPQL 문자열이 key)와 DB statement 캐시를 그대로 재사용한다.
+    //  회원 이름은 부분 일치(like '%name%')
+    //      -MemberNameIndex 로 회원 id 후보를 먼저 찾고 m.id in (...) 으로 좁힌다. (member 전체 스캔 방지)
+    //      -후보가 너무 많거나 검색어가 짧으면 like 만으로 검색
+    //  페이징: OrderSearch.page, size (order_id 역순), OrderSearch.unpaged() 면 전체
+    private static final int MAX_MEMBER_IDS = 1000;
+    private static final int STATUS = 1, NAME = 2, MEMBER_IDS = 4;
+    private static final String[] SEARCH_QUERIES = new String[8];
 
-        List<Predicate> criteria = new ArrayList<>();
+    static {
+        for (int shape = 0; shape < SEARCH_QUERIES.length; shape++) {
+            SEARCH_QUERIES[shape] = searchQuery(shape);
+        }
+    }
+
+    private static String searchQuery(int shape) {
+        List<String> criteria = new ArrayList<>();
+        if ((shape & STATUS) != 0) {
+            criteria.add("o.status = :status");
+        }
+        if ((shape & MEMBER_IDS) != 0) {
+            criteria.add("m.id in :memberIds");
+        }
+        if ((shape & NAME) != 0) {
+            criteria.add("m.name like :name escape '!'");
+        }
+        return "select o from Order o join o.member m" +
+                (criteria.isEmpty() ? "" : " where " + String.join(" and ", criteria)) +
+                " order by o.id desc";
+    }
 
-        //주문 상태 검색
+    @Transactional(readOnly = true)
+    public List<Order> findAllByCriteria(OrderSearch orderSearch) {
+        String memberName = orderSearch.getMemberName();
+        List<Long> memberIds = null;
+        int shape = 0;
         if (orderSearch.getOrderStatus() != null) {
-            Predicate status = cb.equal(o.get("status"),
-                    orderSearch.getOrderStatus());
-            criteria.add(status);
+            shape |= STATUS;
+        }
+        if (StringUtils.hasText(memberName)) {
+            shape |= NAME;
+            //쓰기 트랜잭션에서 아직 flush 안 된 회원도 색인에 반영되도록 먼저 flush (쿼리 실행 시 자동 flush 와 같은 효과)
+            if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+                em.flush();
+            }
+            memberIds = memberNameIndex.findMemberIds(memberName, MAX_MEMBER_IDS).orElse(null);
+            if (memberIds != null) {
+                if (memberIds.isEmpty()) {
+                    return new ArrayList<>();
+                }
+                shape |= MEMBER_IDS;
+            }
         }
 
-        //회원 이름 검색
-        if (StringUtils.hasText(orderSearch.getMemberName())) {
-            Predicate name = cb.like(m.<String>get("name"),
-                    "%" + orderSearch.getMemberName() + "%");
-            criteria.add(name);
+        TypedQuery<Order> query = em.createQuery(SEARCH_QUERIES[shape], Order.class);
+        if ((shape & STATUS) != 0) {
+            query.setParameter("status", orderSearch.getOrderStatus());
+        }
+        if ((shape & MEMBER_IDS) != 0) {
+            query.setParameter("memberIds", memberIds);
+        }
+        if ((shape & NAME) != 0) {
+            query.setParameter("name", "%" + escapeLike(memberName) + "%");
         }
 
-        cq.where(cb.and(criteria.toArray(new Predicate[criteria.size()])));
-        TypedQuery<Order> query = em.createQuery(cq).setMaxResults(1000);
-        return query.getResultList();
+        fetchPlanLoader.applyGraph(query, Order.class);
+        if (!orderSearch.isUnpaged()) {
+            query.setFirstResult(orderSearch.getOffset())
+                    .setMaxResults(orderSearch.getLimit());
+        }
+        return initialize(query.getResultList());
     }
 
+    private static String escapeLike(String value) {
+        return value.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+
+    @Transactional(readOnly = true)
     public List<Order> findAllWithMemberDelivery() {
-        return em.createQuery(
+        return initialize(em.createQuery(
                         "select o from Order o" +
                                 " join fetch o.member m" +
                                 " join fetch o.delivery d", Order.class)
-                .getResultList();
+                .getResultList());
     }
 
+    @Transactional(readOnly = true)
     public List<Order> findAllWithMemberDelivery(int offset, int limit) {
-        return em.createQuery(
+        return initialize(em.createQuery(
                 "select o from Order o" +
                         " join fetch o.member m" +
                         " join fetch o.delivery d", Order.class)
                 .setFirstResult(offset)
                 .setMaxResults(limit)
-                .getResultList();
+                .getResultList());
+    }
+
+    //Keyset(seek) 페이징
+    //  offset 방식은 앞의 row 를 모두 읽고 버리므로 뒤 페이지로 갈수록 느려진다.
+    //  (orderDate, order_id) 순으로 정렬하고 마지막 위치 이후부터 limit 만큼만 조회 -> 몇 번째 페이지든 비용이 같다.
+    //  ToOne 관계만 페치 조인하므로 orderItems 는 기존처럼 default_batch_fetch_size 로 최적화된다.
+    @Transactional(readOnly = true)
+    public List<Order> findAllWithMemberDelivery(OrderCursor cursor, int limit) {
+        if (cursor == null) {
+            return initialize(em.createQuery(
+                    "select o from Order o" +
+                            " join fetch o.member m" +
+                            " join fetch o.delivery d" +
+                            " order by o.orderDate, o.id", Order.class)
+                    .setMaxResults(limit)
+                    .getResultList());
+        }
+
+        return initialize(em.createQuery(
+                "select o from Order o" +
+                        " join fetch o.member m" +
+                        " join fetch o.delivery d" +
+                        " where o.orderDate > :orderDate" +
+                        " or (o.orderDate = :orderDate and o.id > :orderId)" +
+                        " order by o.orderDate, o.id", Order.class)
+                .setParameter("orderDate", cursor.getOrderDate())
+                .setParameter("orderId", cursor.getOrderId())
+                .setMaxResults(limit)
+                .getResultList());
     }
 
     public List<OrderSimpleQueryDTO> findOrderDTOs() {
@@ -102,13 +211,70 @@ public class OrderRepository {
         ).getResultList();
     }
 
+    @Transactional(readOnly = true)
     public List<Order> findAllWithItem() {
-        return em.createQuery(
+        return initialize(em.createQuery(
                 "select distinct o from Order o" +
                         " join fetch o.member m" +
                         " join fetch o.delivery d" +
                         " join fetch o.orderItems oi" +
                         " join fetch oi.item i", Order.class)
+                .getResultList());
+    }
+
+    //일괄 취소 대상 상태 조회
+    public List<OrderCancelTarget> findCancelTargets(Collection<Long> orderIds) {
+        return em.createQuery(
+                "select new jpabook.jpashop.repository.OrderCancelTarget(o.id, o.status, d.status)" +
+                        " from Order o" +
+                        " join o.delivery d" +
+                        " where o.id in :orderIds", OrderCancelTarget.class)
+                .setParameter("orderIds", orderIds)
+                .getResultList();
+    }
+
+    //매출 롤업에서 뺄 주문상품 목록
+    public List<OrderSalesLine> findSalesLines(Collection<Long> orderIds) {
+        return em.createQuery(
+                "select new jpabook.jpashop.repository.sales.OrderSalesLine(o.id, o.orderDate, o.member.id, oi.item.id, oi.orderPrice, oi.count)" +
+                        " from OrderItem oi" +
+                        " join oi.order o" +
+                        " where o.id in :orderIds", OrderSalesLine.class)
+                .setParameter("orderIds", orderIds)
                 .getResultList();
     }
+
+    //주문들의 상품별 주문 수량 합계 (itemId -> count)
+    public Map<Long, Integer> sumCountsByItem(Collection<Long> orderIds) {
+        List<Object[]> rows = em.createQuery(
+                "select oi.item.id, sum(oi.count)" +
+                        " from OrderItem oi" +
+                        " where oi.order.id in :orderIds" +
+                        " group by oi.item.id", Object[].class)
+                .setParameter("orderIds", orderIds)
+                .getResultList();
+
+        Map<Long, Integer> result = new HashMap<>();
+        for (Object[] row : rows) {
+            result.put((Long) row[0], ((Number) row[1]).intValue());
+        }
+        return result;
+    }
+
+    //벌크 연산: 주문 상태를 한번에 CANCEL 로 변경
+    //  영속성 컨텍스트를 거치지 않으므로, 같은 트랜잭션에서 해당 주문 엔티티를 다시 쓰려면 em.clear() 가 필요하다.
+    public int cancelAll(Collection<Long> orderIds) {
+        return em.createQuery(
+                "update Order o set o.status = :cancel" +
+                        " where o.id in :orderIds and o.status = :order")
+                .setParameter("cancel", OrderStatus.CANCEL)
+                .setParameter("order", OrderStatus.ORDER)
+                .setParameter("orderIds", orderIds)
+                .executeUpdate();
+    }
+
+    private List<Order> initialize(List<Order> orders) {
+        fetchPlanLoader.initialize(orders);
+        return orders;
+    }
 }
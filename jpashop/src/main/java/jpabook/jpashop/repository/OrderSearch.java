@@ -1,11 +1,36 @@
 package jpabook.jpashop.repository;
 
 import jpabook.jpashop.domain.OrderStatus;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 
 @Getter @Setter
 public class OrderSearch {
-    private String memberName;          //회원 이름
+
+    public static final int DEFAULT_SIZE = 100;
+    public static final int MAX_SIZE = 1000;
+
+    private String memberName;          //회원 이름 (부분 일치, like '%name%')
     private OrderStatus orderStatus;    //주문 상태 [ORDER, CANCEL]
+    private int page;                   //페이지 번호 (0 부터)
+    private int size = DEFAULT_SIZE;    //페이지 크기 (최대 MAX_SIZE)
+
+    @Setter(AccessLevel.NONE)
+    private boolean unpaged;            //페이징 없이 전체 조회 (요청 파라미터로는 바꿀 수 없다)
+
+    //v1, v2 주문 API 처럼 원래 전체 주문을 반환하던 곳에서 사용 (페이지 크기 제한은 화면 검색에만 적용)
+    public static OrderSearch unpaged() {
+        OrderSearch orderSearch = new OrderSearch();
+        orderSearch.unpaged = true;
+        return orderSearch;
+    }
+
+    public int getLimit() {
+        return Math.max(1, Math.min(size, MAX_SIZE));
+    }
+
+    public int getOffset() {
+        return Math.max(page, 0) * getLimit();
+    }
 }
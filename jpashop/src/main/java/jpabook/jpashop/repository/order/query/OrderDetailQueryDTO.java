@@ -0,0 +1,40 @@
+package jpabook.jpashop.repository.order.query;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.DeliveryStatus;
+import jpabook.jpashop.domain.OrderStatus;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+//주문 상세 페이지 (주문 + 배송 + 주문상품 + 카테고리 + 회원 누적 주문 통계)
+@Data
+@EqualsAndHashCode(of = "orderId")
+public class OrderDetailQueryDTO {
+
+    private Long orderId;
+    private Long memberId;
+    private String name;
+    private LocalDateTime orderDate;
+    private OrderStatus orderStatus;
+    private Address address;
+    private DeliveryStatus deliveryStatus;
+    private List<OrderItemQueryDTO> orderItems = new ArrayList<>();
+    private List<String> categories = new ArrayList<>();
+    private long memberOrderCount;
+    private long memberRevenue;
+
+    public OrderDetailQueryDTO(Long orderId, Long memberId, String name, LocalDateTime orderDate, OrderStatus orderStatus,
+                               Address address, DeliveryStatus deliveryStatus) {
+        this.orderId = orderId;
+        this.memberId = memberId;
+        this.name = name;
+        this.orderDate = orderDate;
+        this.orderStatus = orderStatus;
+        this.address = address;
+        this.deliveryStatus = deliveryStatus;
+    }
+}
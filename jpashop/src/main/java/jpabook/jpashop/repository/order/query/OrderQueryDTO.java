@@ -25,6 +25,7 @@ public class OrderQueryDTO {
         this.orderDate = orderDate;
         this.orderStatus = orderStatus;
         this.address = address;
+        this.orderItems = value;
     }
 
     public OrderQueryDTO(Long orderId, String name, LocalDateTime orderDate, OrderStatus orderStatus, Address address) {
@@ -1,18 +1,35 @@
 package jpabook.jpashop.repository.order.query;
 
+import jpabook.jpashop.repository.OrderCursor;
+import jpabook.jpashop.repository.support.InClauseBatchLoader;
+import jpabook.jpashop.repository.support.ParallelQueryExecutor;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.annotations.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Repository
 @RequiredArgsConstructor
 public class OrderQueryRepository {
 
+    private static final int STREAM_FETCH_SIZE = 500;
+
     private final EntityManager em;
+    private final InClauseBatchLoader inClauseBatchLoader;
+    private final ParallelQueryExecutor parallelQueryExecutor;
 
     //컬렉션은 별도로 조회
     //Query: 루트 1번, 컬렉션 N 번
@@ -49,36 +66,125 @@ public class OrderQueryRepository {
                 .getResultList();
     }
 
+    //루트를 먼저 조회하고, 루트의 orderId 로 orderItem 을 IN 절로 한번에 조회해서 orderId 로 합친다.
+    //  orderItem 조회는 루트의 식별자가 필요하므로 동시에 실행하지 않는다. (루트에 페이징을 걸어도 그대로 동작)
     public List<OrderQueryDTO> findAllByDTO_optimization() {
-
-        //루트 조회(ToOne 코드를 모두 한번에 조회
+        //루트 조회(ToOne 코드를 모두 한번에 조회)
         List<OrderQueryDTO> result = findOrders();
 
         //orderItem 컬렉션을 MAP 한방에 조회
-        Map<Long, List<OrderItemQueryDTO>> orderItemMap = findOrderItemMap(toOrderIds(result));
+        List<Long> orderIds = result.stream().map(OrderQueryDTO::getOrderId).collect(Collectors.toList());
+        Map<Long, List<OrderItemQueryDTO>> orderItemMap = findOrderItemMap(orderIds);
 
         //루프를 돌면서 컬렉션 추가(추가 쿼리 실행X)
         result.forEach(o -> o.setOrderItems(orderItemMap.get(o.getOrderId())));
         return result;
     }
 
-    private static List<Long> toOrderIds(List<OrderQueryDTO> result) {
-        return result.stream()
-                .map(OrderQueryDTO::getOrderId)
-                .collect(Collectors.toList());
+    //주문 상세 페이지 (Keyset 페이징: findAllWithMemberDelivery(OrderCursor, limit) 와 같은 (orderDate, order_id) 순서와 커서)
+    //  루트(주문 + 회원 + 배송, ToOne 조인) 1번으로 식별자를 얻은 뒤,
+    //  서로 의존하지 않는 주문상품 / 카테고리 / 회원 누적 통계를 별도 커넥션에서 동시에 조회하고 id 로 합친다.
+    //      -> 응답 시간: 루트 + max(주문상품, 카테고리, 회원 통계)
+    public List<OrderDetailQueryDTO> findOrderDetails(OrderCursor cursor, int limit) {
+        TypedQuery<OrderDetailQueryDTO> query = em.createQuery(
+                "select new jpabook.jpashop.repository.order.query.OrderDetailQueryDTO(o.id, m.id, m.name, o.orderDate, o.status, d.address, d.status)" +
+                        " from Order o" +
+                        " join o.member m" +
+                        " join o.delivery d" +
+                        (cursor == null ? "" : " where o.orderDate > :orderDate or (o.orderDate = :orderDate and o.id > :orderId)") +
+                        " order by o.orderDate, o.id", OrderDetailQueryDTO.class);
+        if (cursor != null) {
+            query.setParameter("orderDate", cursor.getOrderDate())
+                    .setParameter("orderId", cursor.getOrderId());
+        }
+        List<OrderDetailQueryDTO> result = query
+                .setMaxResults(limit)
+                .getResultList();
+        if (result.isEmpty()) {
+            return result;
+        }
+
+        List<Long> orderIds = result.stream().map(OrderDetailQueryDTO::getOrderId).collect(Collectors.toList());
+        List<Long> memberIds = result.stream().map(OrderDetailQueryDTO::getMemberId).distinct().collect(Collectors.toList());
+
+        ParallelQueryExecutor.Fork fork = parallelQueryExecutor.fork();
+        CompletableFuture<Map<Long, List<OrderItemQueryDTO>>> orderItems = fork.submit(() -> findOrderItemMap(orderIds));
+        CompletableFuture<Map<Long, List<String>>> categories = fork.submit(() -> findCategoryNameMap(orderIds));
+        CompletableFuture<Map<Long, long[]>> memberStats = fork.submit(() -> findMemberStats(memberIds));
+        fork.join();
+
+        Map<Long, List<OrderItemQueryDTO>> orderItemMap = orderItems.join();
+        Map<Long, List<String>> categoryMap = categories.join();
+        Map<Long, long[]> memberStatMap = memberStats.join();
+        for (OrderDetailQueryDTO o : result) {
+            o.setOrderItems(orderItemMap.getOrDefault(o.getOrderId(), new ArrayList<>()));
+            o.setCategories(categoryMap.getOrDefault(o.getOrderId(), new ArrayList<>()));
+            long[] stat = memberStatMap.get(o.getMemberId());
+            if (stat != null) {
+                o.setMemberOrderCount(stat[0]);
+                o.setMemberRevenue(stat[1]);
+            }
+        }
+        return result;
+    }
+
+    //주문별 상품 카테고리 이름 (orderId -> 카테고리 이름 목록)
+    private Map<Long, List<String>> findCategoryNameMap(Collection<Long> orderIds) {
+        List<Object[]> rows = inClauseBatchLoader.load(orderIds, this::findCategoryNamesIn);
+
+        Map<Long, List<String>> result = new HashMap<>();
+        for (Object[] row : rows) {
+            result.computeIfAbsent((Long) row[0], id -> new ArrayList<>()).add((String) row[1]);
+        }
+        return result;
+    }
+
+    private List<Object[]> findCategoryNamesIn(List<Long> orderIds) {
+        return em.createQuery(
+                        "select distinct oi.order.id, c.name" +
+                                " from OrderItem oi" +
+                                " join oi.item i" +
+                                " join i.categories c" +
+                                " where oi.order.id in :orderIds", Object[].class)
+                .setParameter("orderIds", orderIds)
+                .getResultList();
+    }
+
+    //회원별 누적 주문 수, 매출 (memberId -> {orderCount, revenue}), 매출 롤업에서 조회
+    //  패딩으로 반복된 memberId 는 IN 절에서 한 번만 매칭되므로 합계가 두 번 더해지지 않는다.
+    private Map<Long, long[]> findMemberStats(Collection<Long> memberIds) {
+        List<Object[]> rows = inClauseBatchLoader.load(memberIds, this::findMemberStatsIn);
+
+        Map<Long, long[]> result = new HashMap<>();
+        for (Object[] row : rows) {
+            result.put((Long) row[0], new long[]{((Number) row[1]).longValue(), ((Number) row[2]).longValue()});
+        }
+        return result;
+    }
+
+    private List<Object[]> findMemberStatsIn(List<Long> memberIds) {
+        return em.createQuery(
+                        "select s.id.memberId, sum(s.orderCount), sum(s.revenue)" +
+                                " from DailyMemberSales s" +
+                                " where s.id.memberId in :memberIds" +
+                                " group by s.id.memberId", Object[].class)
+                .setParameter("memberIds", memberIds)
+                .getResultList();
     }
 
+    //IN 절은 InClauseBatchLoader 로 고정 크기 청크로 나눠서 조회 (파라미터 제한 회피 + SQL 모양 고정)
     private Map<Long, List<OrderItemQueryDTO>> findOrderItemMap(List<Long> orderIds) {
-        List<OrderItemQueryDTO> orderItems = em.createQuery(
+        return inClauseBatchLoader.loadGrouped(orderIds, this::findOrderItemsIn, OrderItemQueryDTO::getOrderId);
+    }
+
+    private List<OrderItemQueryDTO> findOrderItemsIn(List<Long> orderIds) {
+        return em.createQuery(
                         "select new jpabook.jpashop.repository.order.query.OrderItemQueryDTO(oi.order.id, i.name, oi.orderPrice, oi.count)" +
                                 " from OrderItem oi" +
                                 " join oi.item i" +
                                 " where oi.order.id in :orderIds", OrderItemQueryDTO.class)
                 .setParameter("orderIds", orderIds)
                 .getResultList();
-
-        return orderItems.stream()
-                .collect(Collectors.groupingBy(OrderItemQueryDTO::getOrderId));
     }
 
     public List<OrderFlatDTO> findAllByDTO_flat() {
@@ -92,4 +198,41 @@ public class OrderQueryRepository {
                 .getResultList();
     }
 
+    //V6 스트리밍 버전
+    //  플랫 데이터를 List 로 모두 올리지 않고 forward-only 커서(Stream)로 한 row 씩 읽는다.
+    //  order id 로 정렬되어 있으므로 연속된 row 만 하나의 OrderQueryDTO 로 합치고, 완성되는 즉시 consumer 로 넘긴다.
+    //  메모리에는 주문 1건만 유지되므로 전체 주문 수와 상관없이 메모리 사용량이 일정하다.
+    //  DTO 조회라 영속성 컨텍스트에 엔티티가 쌓이지 않는다.
+    @Transactional(readOnly = true)
+    public void streamAllByDTO_flat(Consumer<OrderQueryDTO> consumer) {
+        try (Stream<OrderFlatDTO> flats = em.createQuery(
+                        "select new jpabook.jpashop.repository.order.query.OrderFlatDTO(o.id,m.name,o.orderDate,o.status,d.address,i.name,oi.orderPrice,oi.count)" +
+                                " from Order o" +
+                                " join o.member m" +
+                                " join o.delivery d" +
+                                " join o.orderItems oi" +
+                                " join oi.item i" +
+                                " order by o.id", OrderFlatDTO.class)
+                .setHint(QueryHints.HINT_FETCH_SIZE, STREAM_FETCH_SIZE)
+                .getResultStream()) {
+
+            OrderQueryDTO current = null;
+            Iterator<OrderFlatDTO> it = flats.iterator();
+            while (it.hasNext()) {
+                OrderFlatDTO flat = it.next();
+                if (current == null || !current.getOrderId().equals(flat.getOrderId())) {
+                    if (current != null) {
+                        consumer.accept(current);
+                    }
+                    current = new OrderQueryDTO(flat.getOrderId(), flat.getName(), flat.getOrderDate(), flat.getOrderStatus(), flat.getAddress());
+                    current.setOrderItems(new ArrayList<>());
+                }
+                current.getOrderItems().add(new OrderItemQueryDTO(flat.getOrderId(), flat.getItemName(), flat.getOrderPrice(), flat.getCount()));
+            }
+            if (current != null) {
+                consumer.accept(current);
+            }
+        }
+    }
+
 }
@@ -0,0 +1,63 @@
+package jpabook.jpashop.repository.order.simplequery;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.OrderStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.function.Consumer;
+
+//V4 (JPQL new 명령어로 DTO 조회)보다 한 단계 더 내려간 JdbcTemplate 조회
+//  JPQL 파싱, 결과 변환(ResultTransformer)을 거치지 않고 필요한 컬럼만 SQL 로 조회해서 RowMapper 로 바로 DTO 생성
+//  order_id 기준 keyset 페이징 지원 (lastOrderId 이후부터 limit 건)
+//  stream 은 fetch size 만큼씩 커서로 읽으면서 consumer 로 넘긴다. (결과 전체를 List 로 올리지 않음)
+//  JdbcTemplate 은 스프링 부트가 등록한 빈을 공유하므로, fetch size 는 stream 의 statement 에만 지정한다.
+@Repository
+@RequiredArgsConstructor
+public class OrderSimpleQueryJdbcRepository {
+
+    private static final String SELECT =
+            "select o.order_id, m.name, o.order_date, o.status, d.city, d.street, d.zipcode" +
+                    " from orders o" +
+                    " join member m on o.member_id = m.member_id" +
+                    " join delivery d on o.delivery_id = d.delivery_id";
+
+    private static final RowMapper<OrderSimpleQueryDTO> ROW_MAPPER = (rs, rowNum) -> {
+        Timestamp orderDate = rs.getTimestamp("order_date");
+        String status = rs.getString("status");
+        return new OrderSimpleQueryDTO(
+                rs.getLong("order_id"),
+                rs.getString("name"),
+                orderDate == null ? null : orderDate.toLocalDateTime(),
+                status == null ? null : OrderStatus.valueOf(status),
+                new Address(rs.getString("city"), rs.getString("street"), rs.getString("zipcode")));
+    };
+
+    private static final int STREAM_FETCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    //lastOrderId 가 null 이면 첫 페이지
+    public List<OrderSimpleQueryDTO> findPage(Long lastOrderId, int limit) {
+        if (lastOrderId == null) {
+            return jdbcTemplate.query(SELECT + " order by o.order_id limit ?", ROW_MAPPER, limit);
+        }
+        return jdbcTemplate.query(SELECT + " where o.order_id > ? order by o.order_id limit ?",
+                ROW_MAPPER, lastOrderId, limit);
+    }
+
+    public void stream(Consumer<OrderSimpleQueryDTO> consumer) {
+        jdbcTemplate.query(con -> {
+                    PreparedStatement ps = con.prepareStatement(SELECT + " order by o.order_id");
+                    ps.setFetchSize(STREAM_FETCH_SIZE);
+                    return ps;
+                },
+                (RowCallbackHandler) rs -> consumer.accept(ROW_MAPPER.mapRow(rs, rs.getRow())));
+    }
+}
@@ -0,0 +1,20 @@
+package jpabook.jpashop.repository.sales;
+
+import lombok.Getter;
+
+import java.time.LocalDate;
+
+//일별 전체 매출 합계
+@Getter
+public class DailySalesDTO {
+
+    private LocalDate salesDate;
+    private long orderCount;
+    private long revenue;
+
+    public DailySalesDTO(LocalDate salesDate, long orderCount, long revenue) {
+        this.salesDate = salesDate;
+        this.orderCount = orderCount;
+        this.revenue = revenue;
+    }
+}
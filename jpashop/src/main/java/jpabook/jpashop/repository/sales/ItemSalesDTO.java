@@ -0,0 +1,22 @@
+package jpabook.jpashop.repository.sales;
+
+import lombok.Getter;
+
+//기간 상품별 매출 합계
+@Getter
+public class ItemSalesDTO {
+
+    private Long itemId;
+    private String name;
+    private long orderCount;
+    private long quantity;
+    private long revenue;
+
+    public ItemSalesDTO(Long itemId, String name, long orderCount, long quantity, long revenue) {
+        this.itemId = itemId;
+        this.name = name;
+        this.orderCount = orderCount;
+        this.quantity = quantity;
+        this.revenue = revenue;
+    }
+}
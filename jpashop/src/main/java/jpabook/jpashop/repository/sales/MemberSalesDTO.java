@@ -0,0 +1,20 @@
+package jpabook.jpashop.repository.sales;
+
+import lombok.Getter;
+
+//기간 회원별 매출 합계
+@Getter
+public class MemberSalesDTO {
+
+    private Long memberId;
+    private String name;
+    private long orderCount;
+    private long revenue;
+
+    public MemberSalesDTO(Long memberId, String name, long orderCount, long revenue) {
+        this.memberId = memberId;
+        this.name = name;
+        this.orderCount = orderCount;
+        this.revenue = revenue;
+    }
+}
@@ -0,0 +1,26 @@
+package jpabook.jpashop.repository.sales;
+
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+//롤업 반영용 주문상품 1건 (엔티티를 로딩하지 않고 필요한 값만 조회)
+@Getter
+public class OrderSalesLine {
+
+    private Long orderId;
+    private LocalDateTime orderDate;
+    private Long memberId;
+    private Long itemId;
+    private int orderPrice;
+    private int count;
+
+    public OrderSalesLine(Long orderId, LocalDateTime orderDate, Long memberId, Long itemId, int orderPrice, int count) {
+        this.orderId = orderId;
+        this.orderDate = orderDate;
+        this.memberId = memberId;
+        this.itemId = itemId;
+        this.orderPrice = orderPrice;
+        this.count = count;
+    }
+}
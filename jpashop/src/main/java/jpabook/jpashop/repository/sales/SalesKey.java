@@ -0,0 +1,27 @@
+package jpabook.jpashop.repository.sales;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import java.time.LocalDate;
+
+//롤업 row 식별자 (일자, 상품 id 또는 회원 id)
+//  반영 순서를 고정해서(일자, id 순) 동시에 커밋하는 트랜잭션끼리 row 락을 엇갈려 잡지 않게 한다.
+@Getter
+@EqualsAndHashCode
+public class SalesKey implements Comparable<SalesKey> {
+
+    private final LocalDate salesDate;
+    private final Long id;
+
+    public SalesKey(LocalDate salesDate, Long id) {
+        this.salesDate = salesDate;
+        this.id = id;
+    }
+
+    @Override
+    public int compareTo(SalesKey o) {
+        int result = salesDate.compareTo(o.salesDate);
+        return result != 0 ? result : id.compareTo(o.id);
+    }
+}
@@ -0,0 +1,146 @@
+package jpabook.jpashop.repository.sales;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+//주문 매출 롤업 (daily_item_sales, daily_member_sales)
+//  반영: 증감분만 update ... set x = x + ? (JDBC batch), row 가 없으면 insert
+//      -동시에 같은 row 를 처음 insert 하면 한쪽이 중복 키로 실패한다. -> 그 row 만 다시 update
+//      -MySQL rewriteBatchedStatements 처럼 batch 결과 건수를 주지 않는 드라이버(SUCCESS_NO_INFO)는 반영된 것으로 본다.
+//  조회: 기간 합계는 (일자 x 상품/회원) row 만 읽는다. 주문/주문상품은 읽지 않는다.
+@Repository
+@RequiredArgsConstructor
+public class SalesRollupRepository {
+
+    private static final String UPDATE_ITEM =
+            "update daily_item_sales set order_count = order_count + ?, quantity = quantity + ?, revenue = revenue + ?" +
+                    " where sales_date = ? and item_id = ?";
+    private static final String INSERT_ITEM =
+            "insert into daily_item_sales (order_count, quantity, revenue, sales_date, item_id) values (?, ?, ?, ?, ?)";
+    private static final String UPDATE_MEMBER =
+            "update daily_member_sales set order_count = order_count + ?, revenue = revenue + ?" +
+                    " where sales_date = ? and member_id = ?";
+    private static final String INSERT_MEMBER =
+            "insert into daily_member_sales (order_count, revenue, sales_date, member_id) values (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager em;
+
+    //deltas: (일자, 상품 id) -> [주문상품 수, 수량, 매출] 증감
+    public void addItemSales(SortedMap<SalesKey, long[]> deltas) {
+        upsert(UPDATE_ITEM, INSERT_ITEM, args(deltas));
+    }
+
+    //deltas: (일자, 회원 id) -> [주문 수, 매출] 증감
+    public void addMemberSales(SortedMap<SalesKey, long[]> deltas) {
+        upsert(UPDATE_MEMBER, INSERT_MEMBER, args(deltas));
+    }
+
+    //롤업을 주문 데이터로 다시 계산 (롤업 도입 전 주문, JDBC 로 넣은 주문 반영)
+    public void rebuild() {
+        jdbcTemplate.update("delete from daily_item_sales");
+        jdbcTemplate.update("delete from daily_member_sales");
+        jdbcTemplate.update("insert into daily_item_sales (sales_date, item_id, order_count, quantity, revenue)" +
+                " select cast(o.order_date as date), oi.item_id, count(*), sum(oi.count), sum(cast(oi.order_price as bigint) * oi.count)" +
+                " from orders o join order_item oi on oi.order_id = o.order_id" +
+                " where o.status = 'ORDER'" +
+                " group by cast(o.order_date as date), oi.item_id");
+        jdbcTemplate.update("insert into daily_member_sales (sales_date, member_id, order_count, revenue)" +
+                " select t.sales_date, t.member_id, count(*), sum(t.revenue)" +
+                " from (select cast(o.order_date as date) sales_date, o.member_id member_id, sum(cast(oi.order_price as bigint) * oi.count) revenue" +
+                "       from orders o join order_item oi on oi.order_id = o.order_id" +
+                "       where o.status = 'ORDER'" +
+                "       group by o.order_id, cast(o.order_date as date), o.member_id) t" +
+                " group by t.sales_date, t.member_id");
+    }
+
+    //기간 상품별 매출 (매출 순)
+    public List<ItemSalesDTO> findItemSales(LocalDate from, LocalDate to, int limit) {
+        return em.createQuery(
+                        "select new jpabook.jpashop.repository.sales.ItemSalesDTO(s.id.itemId, i.name, sum(s.orderCount), sum(s.quantity), sum(s.revenue))" +
+                                " from DailyItemSales s, Item i" +
+                                " where i.id = s.id.itemId" +
+                                " and s.id.salesDate between :from and :to" +
+                                " group by s.id.itemId, i.name" +
+                                " order by sum(s.revenue) desc", ItemSalesDTO.class)
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    //기간 회원별 매출 (매출 순)
+    public List<MemberSalesDTO> findMemberSales(LocalDate from, LocalDate to, int limit) {
+        return em.createQuery(
+                        "select new jpabook.jpashop.repository.sales.MemberSalesDTO(s.id.memberId, m.name, sum(s.orderCount), sum(s.revenue))" +
+                                " from DailyMemberSales s, Member m" +
+                                " where m.id = s.id.memberId" +
+                                " and s.id.salesDate between :from and :to" +
+                                " group by s.id.memberId, m.name" +
+                                " order by sum(s.revenue) desc", MemberSalesDTO.class)
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    //기간 일별 전체 매출 (일자 순)
+    public List<DailySalesDTO> findDailySales(LocalDate from, LocalDate to) {
+        return em.createQuery(
+                        "select new jpabook.jpashop.repository.sales.DailySalesDTO(s.id.salesDate, sum(s.orderCount), sum(s.revenue))" +
+                                " from DailyMemberSales s" +
+                                " where s.id.salesDate between :from and :to" +
+                                " group by s.id.salesDate" +
+                                " order by s.id.salesDate", DailySalesDTO.class)
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .getResultList();
+    }
+
+    //[증감..., 일자, id]
+    private List<Object[]> args(SortedMap<SalesKey, long[]> deltas) {
+        List<Object[]> args = new ArrayList<>(deltas.size());
+        for (Map.Entry<SalesKey, long[]> entry : deltas.entrySet()) {
+            long[] delta = entry.getValue();
+            Object[] row = new Object[delta.length + 2];
+            for (int i = 0; i < delta.length; i++) {
+                row[i] = delta[i];
+            }
+            row[delta.length] = entry.getKey().getSalesDate();
+            row[delta.length + 1] = entry.getKey().getId();
+            args.add(row);
+        }
+        return args;
+    }
+
+    //update 와 insert 의 파라미터 순서가 같다.
+    private void upsert(String updateSql, String insertSql, List<Object[]> args) {
+        if (args.isEmpty()) {
+            return;
+        }
+        int[] counts = jdbcTemplate.batchUpdate(updateSql, args);
+        Collection<Object[]> missing = new ArrayList<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) {
+                missing.add(args.get(i));
+            }
+        }
+        for (Object[] row : missing) {
+            try {
+                jdbcTemplate.update(insertSql, row);
+            } catch (DuplicateKeyException e) {
+                jdbcTemplate.update(updateSql, row);    //다른 트랜잭션이 먼저 insert
+            }
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package jpabook.jpashop.repository.support;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+//컨트롤러 메서드가 응답을 만들 때 사용할 연관관계 경로 (OSIV 없이 지연 로딩하기 위한 fetch plan)
+//  ex) @FetchPlan({"member", "delivery", "orderItems.item"})
+//  FetchPlanInterceptor 가 요청마다 FetchPlanContext 에 담고,
+//  조회 리포지토리가 트랜잭션 안에서 FetchPlanLoader 로 미리 로딩한다.
+//      -루트의 ToOne 경로: 엔티티 그래프로 조인해서 한번에 조회 (컬렉션은 페이징 때문에 조인하지 않는다)
+//      -그 외 경로: 트랜잭션 안에서 초기화 -> default_batch_fetch_size 로 IN 절 조회
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface FetchPlan {
+
+    //연관관계 경로 ("." 으로 구분)
+    String[] value();
+}
@@ -0,0 +1,24 @@
+package jpabook.jpashop.repository.support;
+
+//현재 요청(스레드)의 fetch plan 보관소
+public final class FetchPlanContext {
+
+    private static final ThreadLocal<String[]> paths = new ThreadLocal<>();
+
+    private FetchPlanContext() {
+    }
+
+    public static void set(String[] fetchPaths) {
+        paths.set(fetchPaths);
+    }
+
+    //fetch plan 이 없으면 빈 배열
+    public static String[] get() {
+        String[] fetchPaths = paths.get();
+        return fetchPaths != null ? fetchPaths : new String[0];
+    }
+
+    public static void clear() {
+        paths.remove();
+    }
+}
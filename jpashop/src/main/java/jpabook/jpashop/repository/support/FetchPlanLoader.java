@@ -0,0 +1,75 @@
+package jpabook.jpashop.repository.support;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Hibernate;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityGraph;
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.EntityType;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+//FetchPlanContext 의 fetch plan 을 조회에 적용
+//  트랜잭션(영속성 컨텍스트) 안에서 호출해야 한다.
+@Component
+@RequiredArgsConstructor
+public class FetchPlanLoader {
+
+    private static final String LOAD_GRAPH = "javax.persistence.loadgraph";
+
+    private final EntityManager em;
+
+    //루트의 ToOne 경로를 엔티티 그래프로 조인 (이미 페치 조인하는 쿼리에는 사용하지 않는다)
+    public <T> TypedQuery<T> applyGraph(TypedQuery<T> query, Class<T> rootType) {
+        String[] paths = FetchPlanContext.get();
+        if (paths.length == 0) {
+            return query;
+        }
+
+        EntityType<T> entityType = em.getMetamodel().entity(rootType);
+        EntityGraph<T> graph = em.createEntityGraph(rootType);
+        boolean empty = true;
+        for (String path : paths) {
+            String root = path.split("\\.")[0];
+            Attribute<? super T, ?> attribute = entityType.getAttribute(root);
+            if (!attribute.isCollection()) {
+                graph.addAttributeNodes(root);
+                empty = false;
+            }
+        }
+        return empty ? query : query.setHint(LOAD_GRAPH, graph);
+    }
+
+    //fetch plan 의 경로를 따라가며 초기화
+    //  같은 경로의 프록시/컬렉션은 default_batch_fetch_size 에 의해 IN 절로 함께 로딩된다.
+    public void initialize(Collection<?> roots) {
+        for (String path : FetchPlanContext.get()) {
+            List<Object> current = new ArrayList<>(roots);
+            for (String property : path.split("\\.")) {
+                current = next(current, property);
+            }
+        }
+    }
+
+    private List<Object> next(List<Object> entities, String property) {
+        List<Object> next = new ArrayList<>();
+        for (Object entity : entities) {
+            Object value = PropertyAccessorFactory.forBeanPropertyAccess(entity).getPropertyValue(property);
+            if (value == null) {
+                continue;
+            }
+            Hibernate.initialize(value);
+            if (value instanceof Collection) {
+                next.addAll((Collection<?>) value);
+            } else {
+                next.add(value);
+            }
+        }
+        return next;
+    }
+}
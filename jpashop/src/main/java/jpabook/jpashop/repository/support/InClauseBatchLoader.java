@@ -0,0 +1,130 @@
+package jpabook.jpashop.repository.support;
+
+import jpabook.jpashop.monitoring.SqlStatementListener;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+//1:N 컬렉션을 IN 절로 조회할 때 사용하는 공통 로더
+//  IN 절에 식별자를 한번에 모두 넣으면
+//      -DB 의 IN 절 파라미터 제한(ex. 1000개)을 넘을 수 있다.
+//      -리스트 크기마다 SQL 이 달라져서 statement 캐시가 무의미해진다.
+//  그래서 식별자를 고정 크기 청크로 나누고, 마지막 청크는 2의 제곱 크기로 패딩(마지막 식별자 반복)한다.
+//      -> SQL 모양은 8 ~ chunkSize 사이의 2의 제곱 몇 개로 고정된다.
+//  청크가 여러 개면 제한된 크기의 스레드 풀에서 병렬로 조회하고 결과를 key 기준으로 합친다.
+//  청크별 SQL 은 호출한 스레드의 SQL 측정 범위에 기록된다.
+//  주의: 다른 스레드에서 조회하므로 호출한 쪽 트랜잭션의 미커밋 데이터는 보이지 않는다. (읽기 전용 DTO 조회에만 사용)
+@Component
+public class InClauseBatchLoader {
+
+    private static final int MIN_CHUNK_SIZE = 8;
+
+    private final int chunkSize;
+    private final ThreadPoolExecutor executor;
+    private final SqlStatementListener sqlStatementListener;
+
+    public InClauseBatchLoader(SqlStatementListener sqlStatementListener,
+                               @Value("${jpashop.in-clause.chunk-size:512}") int chunkSize,
+                               @Value("${jpashop.in-clause.threads:4}") int threads) {
+        if (Integer.bitCount(chunkSize) != 1 || chunkSize < MIN_CHUNK_SIZE) {
+            throw new IllegalArgumentException("chunk-size 는 " + MIN_CHUNK_SIZE + " 이상의 2의 제곱이어야 합니다.");
+        }
+        this.chunkSize = chunkSize;
+        this.sqlStatementListener = sqlStatementListener;
+        AtomicInteger seq = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads * 16),
+                r -> {
+                    Thread t = new Thread(r, "in-clause-loader-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());     //큐가 꽉 차면 호출한 스레드에서 직접 실행
+    }
+
+    //ids 로 query 를 청크 단위 실행하고 keyMapper 기준으로 묶어서 반환
+    public <K, V> Map<K, List<V>> loadGrouped(Collection<K> ids,
+                                             Function<List<K>, List<V>> query,
+                                             Function<V, K> keyMapper) {
+        return load(ids, query).stream()
+                .collect(Collectors.groupingBy(keyMapper));
+    }
+
+    //ids 로 query 를 청크 단위 실행하고 결과를 모두 합쳐서 반환
+    public <K, V> List<V> load(Collection<K> ids, Function<List<K>, List<V>> query) {
+        List<List<K>> chunks = split(ids);
+        if (chunks.isEmpty()) {
+            return new ArrayList<>();
+        }
+        if (chunks.size() == 1) {
+            return query.apply(chunks.get(0));
+        }
+
+        List<CompletableFuture<List<V>>> futures = chunks.stream()
+                .map(chunk -> {
+                    CompletableFuture<List<V>> future = new CompletableFuture<>();
+                    executor.execute(sqlStatementListener.propagate(() -> {
+                        try {
+                            future.complete(query.apply(chunk));
+                        } catch (Throwable e) {
+                            future.completeExceptionally(e);
+                        }
+                    }));
+                    return future;
+                })
+                .collect(Collectors.toList());
+
+        List<V> result = new ArrayList<>();
+        try {
+            for (CompletableFuture<List<V>> future : futures) {
+                result.addAll(future.join());
+            }
+        } catch (CompletionException e) {
+            futures.forEach(f -> f.cancel(true));
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+        return result;
+    }
+
+    //중복 제거 후 chunkSize 로 나누고 마지막 청크는 패딩
+    <K> List<List<K>> split(Collection<K> ids) {
+        List<K> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+        List<List<K>> chunks = new ArrayList<>();
+        for (int from = 0; from < distinct.size(); from += chunkSize) {
+            List<K> chunk = new ArrayList<>(distinct.subList(from, Math.min(from + chunkSize, distinct.size())));
+            pad(chunk);
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
+    private <K> void pad(List<K> chunk) {
+        int target = Math.max(MIN_CHUNK_SIZE, Integer.highestOneBit(chunk.size() - 1) << 1);
+        K last = chunk.get(chunk.size() - 1);
+        while (chunk.size() < target) {
+            chunk.add(last);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
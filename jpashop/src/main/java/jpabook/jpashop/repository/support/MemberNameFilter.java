@@ -0,0 +1,106 @@
+package jpabook.jpashop.repository.support;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+//회원 이름 Bloom filter (메모리)
+//  회원 가입 때마다 이름으로 회원을 조회하지만, 대부분은 처음 쓰는 이름이다.
+//  mightContain 이 false 면 그 이름은 확실히 없으므로 조회를 생략한다. true 면(오탐 포함) DB 로 확인한다.
+//  -비트는 추가만 하고 지우지 않는다. 롤백/이름 변경으로 남은 비트는 오탐이 될 뿐 틀린 답이 되지 않는다.
+//  -애플리케이션 시작 시 DB 에서 채우고(warm-up), 끝나기 전까지는 항상 true (DB 로 확인)
+//  -다른 서버/JDBC 로 들어온 이름은 모를 수 있다. 최종 판단은 DB unique 제약(uk_member_name)이 한다.
+//  크기: expected-insertions, fpp 로 계산 (100만 명, 1% -> 약 1.2MB, 해시 7개)
+@Slf4j
+@Component
+public class MemberNameFilter {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AtomicLongArray bits;
+    private final long bitSize;
+    private final int hashCount;
+    private final AtomicLong skipped = new AtomicLong();
+    private volatile boolean ready;
+
+    public MemberNameFilter(JdbcTemplate jdbcTemplate,
+                            @Value("${jpashop.member.name-filter.expected-insertions:1000000}") long expectedInsertions,
+                            @Value("${jpashop.member.name-filter.fpp:0.01}") double fpp) {
+        this.jdbcTemplate = jdbcTemplate;
+        long m = (long) Math.ceil(-expectedInsertions * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+        this.bits = new AtomicLongArray((int) ((m + 63) / 64));
+        this.bitSize = bits.length() * 64L;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitSize / expectedInsertions * Math.log(2)));
+    }
+
+    //애플리케이션 시작 시 전체 회원 이름으로 채운다.
+    //  채우는 동안 가입한 이름은 put 으로 함께 들어가므로 빠지는 이름이 없다.
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        long[] count = new long[1];
+        jdbcTemplate.query("select name from member", (RowCallbackHandler) rs -> {
+            put(rs.getString(1));
+            count[0]++;
+        });
+        ready = true;
+        log.info("member name filter ready. members={}, bits={}, hashes={}", count[0], bitSize, hashCount);
+    }
+
+    public void put(String name) {
+        if (name == null) {
+            return;
+        }
+        long h1 = hash(name);
+        long h2 = mix(h1);
+        for (int i = 0; i < hashCount; i++) {
+            long index = Math.floorMod(h1 + i * h2, bitSize);
+            long mask = 1L << index;
+            bits.getAndAccumulate((int) (index >>> 6), mask, (a, b) -> a | b);
+        }
+    }
+
+    //false: 확실히 없는 이름, true: 있을 수도 있는 이름
+    public boolean mightContain(String name) {
+        if (!ready || name == null) {
+            return true;
+        }
+        long h1 = hash(name);
+        long h2 = mix(h1);
+        for (int i = 0; i < hashCount; i++) {
+            long index = Math.floorMod(h1 + i * h2, bitSize);
+            if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                skipped.incrementAndGet();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    //조회를 생략한 횟수
+    public long getSkipped() {
+        return skipped.get();
+    }
+
+    //FNV-1a 64bit
+    private static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    //두 번째 해시 (splitmix64 finalizer), 홀수로 만들어서 인덱스가 한 곳에 몰리지 않게 한다.
+    private static long mix(long h) {
+        h = (h ^ (h >>> 30)) * 0xbf58476d1ce4e5b9L;
+        h = (h ^ (h >>> 27)) * 0x94d049bb133111ebL;
+        return (h ^ (h >>> 31)) | 1;
+    }
+}
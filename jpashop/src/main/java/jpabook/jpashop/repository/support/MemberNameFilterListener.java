@@ -0,0 +1,22 @@
+package jpabook.jpashop.repository.support;
+
+import jpabook.jpashop.domain.Member;
+import lombok.RequiredArgsConstructor;
+
+import javax.persistence.PostUpdate;
+import javax.persistence.PrePersist;
+
+//Member 엔티티 리스너: 회원 이름 Bloom filter 갱신
+//  insert 전에(PrePersist) 넣어서, 같은 이름으로 동시에 가입하는 다른 요청이 DB 로 확인하게 한다.
+//  롤백돼도 지우지 않는다. (오탐이 될 뿐)
+@RequiredArgsConstructor
+public class MemberNameFilterListener {
+
+    private final MemberNameFilter memberNameFilter;
+
+    @PrePersist
+    @PostUpdate
+    public void put(Member member) {
+        memberNameFilter.put(member.getName());
+    }
+}
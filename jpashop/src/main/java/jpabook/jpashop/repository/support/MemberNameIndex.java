@@ -0,0 +1,219 @@
+package jpabook.jpashop.repository.support;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+//회원 이름 부분 일치 검색용 bigram 역색인 (메모리)
+//  like '%name%' 은 인덱스를 사용하지 못해서 member 전체를 읽는다.
+//  이름을 2글자 단위(bigram)로 잘라서 bigram -> 회원 id 목록(정렬된 long 배열)을 유지하고,
+//  검색어의 bigram 목록을 교집합한 뒤 실제 이름으로 한번 더 확인해서 회원 id 를 찾는다.
+//      -> 주문 검색은 o.member.id in (...) 으로 PK 인덱스를 사용한다.
+//  -MemberNameIndexListener 가 회원 저장/수정/삭제 시점에 반영하고, 롤백되면 되돌린다.
+//  -색인은 후보를 좁히는 용도이고, 최종 확인은 DB 조건(m.name like)으로 한다.
+//  -애플리케이션 시작 시 DB 에서 다시 만든다. 다 만들기 전에는 Optional.empty (like 로 검색)
+//  -JPA 를 거치지 않고 JDBC 로 넣은 회원은 리스너가 모르므로 rebuild 를 다시 호출해야 검색된다.
+//  -검색어가 2글자 미만이면 사용할 수 없다. (Optional.empty -> 호출하는 쪽에서 like 로 검색)
+//  메모리: 회원 수 x (이름 + bigram 수 x 8 byte) 정도
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MemberNameIndex {
+
+    static final int GRAM = 2;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, String> names = new HashMap<>();
+    private final Map<String, Postings> postings = new HashMap<>();
+    private volatile boolean ready;
+
+    //애플리케이션 시작 시 전체 회원으로 색인
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        Map<Long, String> loaded = new HashMap<>();
+        jdbcTemplate.query("select member_id, name from member",
+                (RowCallbackHandler) rs -> loaded.put(rs.getLong(1), rs.getString(2)));
+
+        lock.writeLock().lock();
+        try {
+            names.clear();
+            postings.clear();
+            loaded.forEach(this::addInternal);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        ready = true;
+        log.info("member name index rebuilt. members={}, grams={}", loaded.size(), postings.size());
+    }
+
+    //색인하고 이전 이름을 반환 (없으면 null)
+    public String index(Long memberId, String name) {
+        lock.writeLock().lock();
+        try {
+            String old = names.get(memberId);
+            if (old != null && old.equals(name)) {
+                return old;
+            }
+            removeInternal(memberId);
+            addInternal(memberId, name);
+            return old;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //색인에서 제거하고 이전 이름을 반환 (없으면 null)
+    public String remove(Long memberId) {
+        lock.writeLock().lock();
+        try {
+            return removeInternal(memberId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //이름에 term 이 포함된 회원 id
+    //  색인을 아직 만들지 않았거나, term 이 너무 짧거나, 결과가 maxResults 를 넘으면 Optional.empty (색인으로 좁힐 수 없음)
+    public Optional<List<Long>> findMemberIds(String term, int maxResults) {
+        if (!ready || term == null || term.length() < GRAM) {
+            return Optional.empty();
+        }
+
+        lock.readLock().lock();
+        try {
+            List<Postings> lists = new ArrayList<>();
+            for (String gram : grams(term)) {
+                Postings list = postings.get(gram);
+                if (list == null) {
+                    return Optional.of(new ArrayList<>());
+                }
+                lists.add(list);
+            }
+            lists.sort((a, b) -> Integer.compare(a.size, b.size));
+
+            //가장 짧은 목록을 기준으로 나머지 목록에 모두 있는 id 만 남긴다.
+            List<Long> result = new ArrayList<>();
+            Postings smallest = lists.get(0);
+            for (int i = 0; i < smallest.size; i++) {
+                long id = smallest.ids[i];
+                if (containsAll(lists, id) && names.get(id).contains(term)) {
+                    if (result.size() == maxResults) {
+                        return Optional.empty();
+                    }
+                    result.add(id);
+                }
+            }
+            return Optional.of(result);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return names.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private boolean containsAll(List<Postings> lists, long id) {
+        for (int i = 1; i < lists.size(); i++) {
+            if (lists.get(i).indexOf(id) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void addInternal(Long memberId, String name) {
+        if (name == null) {
+            return;
+        }
+        names.put(memberId, name);
+        for (String gram : grams(name)) {
+            postings.computeIfAbsent(gram, g -> new Postings()).add(memberId);
+        }
+    }
+
+    private String removeInternal(Long memberId) {
+        String old = names.remove(memberId);
+        if (old == null) {
+            return null;
+        }
+        for (String gram : grams(old)) {
+            Postings list = postings.get(gram);
+            if (list != null && list.remove(memberId) && list.size == 0) {
+                postings.remove(gram);
+            }
+        }
+        return old;
+    }
+
+    static Set<String> grams(String value) {
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + GRAM <= value.length(); i++) {
+            grams.add(value.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    //정렬된 회원 id 목록
+    //  회원 id 는 시퀀스로 증가하므로 대부분 끝에 추가된다.
+    static class Postings {
+        long[] ids = new long[4];
+        int size;
+
+        int indexOf(long id) {
+            return Arrays.binarySearch(ids, 0, size, id);
+        }
+
+        void add(long id) {
+            if (size > 0 && ids[size - 1] >= id) {
+                int index = indexOf(id);
+                if (index >= 0) {
+                    return;
+                }
+                insert(-index - 1, id);
+                return;
+            }
+            insert(size, id);
+        }
+
+        boolean remove(long id) {
+            int index = indexOf(id);
+            if (index < 0) {
+                return false;
+            }
+            System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+            size--;
+            return true;
+        }
+
+        private void insert(int index, long id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, index, ids, index + 1, size - index);
+            ids[index] = id;
+            size++;
+        }
+    }
+}
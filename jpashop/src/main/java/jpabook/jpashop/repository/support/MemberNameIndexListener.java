@@ -0,0 +1,56 @@
+package jpabook.jpashop.repository.support;
+
+import jpabook.jpashop.domain.Member;
+import lombok.RequiredArgsConstructor;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+//Member 엔티티 리스너: 회원 이름 색인 갱신
+//  스프링 부트는 Hibernate 가 엔티티 리스너를 스프링 빈으로 생성하게 설정하므로 MemberNameIndex 를 주입받을 수 있다.
+//  flush 시점에 바로 반영해서 같은 트랜잭션 안의 검색에도 보이게 하고, 트랜잭션이 롤백되면 이전 이름으로 되돌린다.
+@RequiredArgsConstructor
+public class MemberNameIndexListener {
+
+    private final MemberNameIndex memberNameIndex;
+
+    @PostPersist
+    @PostUpdate
+    public void index(Member member) {
+        Long id = member.getId();
+        String previous = memberNameIndex.index(id, member.getName());
+        onRollback(() -> restore(id, previous));
+    }
+
+    @PostRemove
+    public void remove(Member member) {
+        Long id = member.getId();
+        String previous = memberNameIndex.remove(id);
+        onRollback(() -> restore(id, previous));
+    }
+
+    private void restore(Long id, String previous) {
+        if (previous == null) {
+            memberNameIndex.remove(id);
+        } else {
+            memberNameIndex.index(id, previous);
+        }
+    }
+
+    private void onRollback(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    action.run();
+                }
+            }
+        });
+    }
+}
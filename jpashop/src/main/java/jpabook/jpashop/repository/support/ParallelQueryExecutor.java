@@ -0,0 +1,119 @@
+package jpabook.jpashop.repository.support;
+
+import jpabook.jpashop.monitoring.SqlStatementListener;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+//서로 의존하지 않는 DTO 조회 쿼리를 동시에 실행하는 공통 실행기
+//  같은 커넥션에서 순서대로 실행하면 응답 시간은 쿼리 시간의 합이 된다.
+//  쿼리마다 제한된 크기의 스레드 풀에서 별도 읽기 전용 트랜잭션(= 별도 커넥션)으로 실행하면 가장 느린 쿼리 시간에 가까워진다.
+//      Fork fork = parallelQueryExecutor.fork();
+//      CompletableFuture<A> a = fork.submit(() -> ...);
+//      CompletableFuture<B> b = fork.submit(() -> ...);
+//      fork.join();        //모두 끝날 때까지 대기 (timeout-ms 초과 또는 하나라도 실패하면 나머지를 취소)
+//  -timeout-ms 는 트랜잭션 timeout 으로도 걸어서 JDBC statement 의 query timeout 으로 DB 에서도 끊는다.
+//  -풀과 큐가 꽉 차면 호출한 스레드에서 직접 실행한다. (호출한 쪽 트랜잭션이 있으면 거기에 참여)
+//  -실행한 SQL 은 호출한 스레드의 SQL 측정 범위(요청별 통계, @SqlBudget)에 기록된다.
+//  주의: 다른 스레드에서 조회하므로 호출한 쪽 트랜잭션의 미커밋 데이터는 보이지 않는다. (읽기 전용 DTO 조회에만 사용)
+//        커넥션 풀 크기보다 threads 를 작게 잡아야 요청 스레드가 커넥션을 기다리며 굶지 않는다.
+@Component
+public class ParallelQueryExecutor {
+
+    private final ThreadPoolExecutor executor;
+    private final TransactionTemplate readOnlyTransaction;
+    private final SqlStatementListener sqlStatementListener;
+    private final long timeoutMillis;
+
+    public ParallelQueryExecutor(PlatformTransactionManager transactionManager,
+                                 SqlStatementListener sqlStatementListener,
+                                 @Value("${jpashop.parallel-query.threads:8}") int threads,
+                                 @Value("${jpashop.parallel-query.timeout-ms:3000}") long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+        this.sqlStatementListener = sqlStatementListener;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.readOnlyTransaction.setTimeout((int) Math.max(1, TimeUnit.MILLISECONDS.toSeconds(timeoutMillis + 999)));
+        AtomicInteger seq = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads * 16),
+                r -> {
+                    Thread t = new Thread(r, "parallel-query-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());     //큐가 꽉 차면 호출한 스레드에서 직접 실행
+    }
+
+    public Fork fork() {
+        return new Fork();
+    }
+
+    //한 번의 조립에 필요한 쿼리 묶음
+    public class Fork {
+
+        private final List<Future<?>> tasks = new ArrayList<>();
+        private final List<CompletableFuture<?>> results = new ArrayList<>();
+        private final CompletableFuture<Void> failed = new CompletableFuture<>();
+
+        public <T> CompletableFuture<T> submit(Supplier<T> query) {
+            CompletableFuture<T> result = new CompletableFuture<>();
+            results.add(result);
+            tasks.add(executor.submit(sqlStatementListener.propagate(() -> {
+                try {
+                    result.complete(readOnlyTransaction.execute(status -> query.get()));
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                    failed.completeExceptionally(e);    //하나라도 실패하면 나머지를 기다리지 않는다.
+                }
+            })));
+            return result;
+        }
+
+        //모든 쿼리가 끝날 때까지 대기. 실패하거나 timeout 이 지나면 나머지 쿼리를 취소(interrupt)하고 예외를 던진다.
+        public void join() {
+            CompletableFuture<Object> done = CompletableFuture.anyOf(
+                    CompletableFuture.allOf(results.toArray(new CompletableFuture[0])), failed);
+            try {
+                done.get(timeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                cancel();
+                throw new QueryTimeoutException("parallel query timed out after " + timeoutMillis + "ms", e);
+            } catch (InterruptedException e) {
+                cancel();
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("parallel query interrupted", e);
+            } catch (ExecutionException e) {
+                cancel();
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+
+        private void cancel() {
+            tasks.forEach(t -> t.cancel(true));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
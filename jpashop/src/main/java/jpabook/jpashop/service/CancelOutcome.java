@@ -0,0 +1,13 @@
+package jpabook.jpashop.service;
+
+//일괄 주문 취소 결과
+public enum CancelOutcome {
+    CANCELED,               //취소 완료
+    NOT_FOUND,              //주문 없음
+    ALREADY_CANCELED,       //이미 취소된 주문
+    DELIVERY_COMPLETED,     //배송 완료된 주문은 취소 불가
+    QUEUE_FULL,             //취소 대기열이 가득 참 (잠시 후 재시도)
+    REJECTED,               //서버 종료 중이라 접수하지 않음
+    TIMEOUT,                //응답 대기 시간 초과 (처리 여부는 주문 조회로 확인)
+    FAILED                  //처리 중 오류
+}
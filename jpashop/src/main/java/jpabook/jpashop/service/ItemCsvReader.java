@@ -0,0 +1,129 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.repository.ItemImportRow;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+//상품 CSV 를 한 줄씩 읽는 Iterator (전체를 메모리에 올리지 않는다)
+//  첫 줄은 헤더: type,name,price,stockQuantity,author,isbn,artist,etc,director,actor (순서 자유, 일부 생략 가능)
+//  값에 , 나 " 가 있으면 "..." 로 감싸고 " 는 "" 로 쓴다. (줄바꿈은 지원하지 않는다)
+public class ItemCsvReader implements Iterator<ItemImportRow> {
+
+    private final BufferedReader reader;
+    private final String[] header;
+    private String nextLine;
+    private long read;              //지금까지 읽은 줄 수 (빈 줄 포함)
+    private long nextLineNumber;    //nextLine 의 줄 번호
+    private long line;              //마지막으로 반환한 상품의 줄 번호 (헤더 = 1)
+
+    public ItemCsvReader(Reader reader) {
+        this.reader = new BufferedReader(reader);
+        String headerLine = readLine();
+        if (headerLine == null) {
+            throw new IllegalArgumentException("CSV 헤더가 없습니다.");
+        }
+        this.header = parse(headerLine).toArray(new String[0]);
+        this.line = read;
+        this.nextLine = readLine();
+    }
+
+    @Override
+    public boolean hasNext() {
+        return nextLine != null;
+    }
+
+    @Override
+    public ItemImportRow next() {
+        if (nextLine == null) {
+            throw new NoSuchElementException();
+        }
+        List<String> values = parse(nextLine);
+        line = nextLineNumber;
+        nextLine = readLine();
+
+        ItemImportRow row = new ItemImportRow();
+        try {
+            for (int i = 0; i < header.length && i < values.size(); i++) {
+                set(row, header[i].trim(), values.get(i));
+            }
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("잘못된 상품 데이터입니다. line=" + line, e);
+        }
+        return row;
+    }
+
+    //원본 CSV 의 줄 번호 (빈 줄도 센다)
+    public long getLine() {
+        return line;
+    }
+
+    private void set(ItemImportRow row, String column, String value) {
+        if (value.isEmpty()) {
+            return;
+        }
+        switch (column) {
+            case "type": row.setType(ItemImportRow.ItemType.valueOf(value.trim().toUpperCase())); break;
+            case "name": row.setName(value); break;
+            case "price": row.setPrice(Integer.parseInt(value.trim())); break;
+            case "stockQuantity": row.setStockQuantity(Integer.parseInt(value.trim())); break;
+            case "author": row.setAuthor(value); break;
+            case "isbn": row.setIsbn(value); break;
+            case "artist": row.setArtist(value); break;
+            case "etc": row.setEtc(value); break;
+            case "director": row.setDirector(value); break;
+            case "actor": row.setActor(value); break;
+            default: throw new IllegalArgumentException("알 수 없는 컬럼입니다. column=" + column);
+        }
+    }
+
+    private String readLine() {
+        try {
+            String value;
+            do {
+                value = reader.readLine();
+                if (value != null) {
+                    read++;
+                }
+            } while (value != null && value.isBlank());
+            nextLineNumber = read;
+            return value;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static List<String> parse(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    value.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        values.add(value.toString());
+        return values;
+    }
+}
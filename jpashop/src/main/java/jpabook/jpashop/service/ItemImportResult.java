@@ -0,0 +1,15 @@
+package jpabook.jpashop.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+//상품 일괄 등록 결과
+@Getter
+@AllArgsConstructor
+public class ItemImportResult {
+
+    private long rows;              //등록한 상품 수
+    private long batches;           //커밋한 배치 수
+    private long elapsedMillis;
+    private long rowsPerSecond;
+}
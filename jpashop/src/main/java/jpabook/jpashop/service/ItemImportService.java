@@ -0,0 +1,96 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.repository.ItemBulkRepository;
+import jpabook.jpashop.repository.ItemImportRow;
+import jpabook.jpashop.service.query.ItemQueryService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongUnaryOperator;
+
+//상품 일괄 등록
+//  요청 본문을 한 건씩 읽어서 batch-size 만큼 모아 JDBC batch insert 하고 배치마다 커밋한다.
+//      -> 메모리에는 배치 1개 분량만 올라가고, 트랜잭션(undo log, 락)도 배치 크기로 제한된다.
+//  중간에 실패하면 실패한 배치 이전까지는 이미 커밋된 상태다. (결과/로그의 rows 로 확인)
+//  상품 목록 캐시는 배치가 하나라도 커밋됐으면 실패해도 제거한다.
+//  진행 상황은 progress-interval 건마다 로그로 남긴다.
+@Slf4j
+@Service
+public class ItemImportService {
+
+    private final ItemBulkRepository itemBulkRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final CacheManager cacheManager;
+    private final int batchSize;
+    private final int progressInterval;
+
+    public ItemImportService(ItemBulkRepository itemBulkRepository,
+                             TransactionTemplate transactionTemplate,
+                             CacheManager cacheManager,
+                             @Value("${jpashop.item-import.batch-size:1000}") int batchSize,
+                             @Value("${jpashop.item-import.progress-interval:50000}") int progressInterval) {
+        this.itemBulkRepository = itemBulkRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.cacheManager = cacheManager;
+        this.batchSize = batchSize;
+        this.progressInterval = progressInterval;
+    }
+
+    //CSV: 오류 위치는 원본 줄 번호
+    public ItemImportResult importItems(ItemCsvReader reader) {
+        return importItems(reader, index -> reader.getLine());
+    }
+
+    //JSON 등: 오류 위치는 몇 번째 상품인지 (1 부터)
+    public ItemImportResult importItems(Iterator<ItemImportRow> rows) {
+        return importItems(rows, index -> index);
+    }
+
+    private ItemImportResult importItems(Iterator<ItemImportRow> rows, LongUnaryOperator lineOf) {
+        long start = System.nanoTime();
+        long count = 0;
+        long batches = 0;
+        List<ItemImportRow> batch = new ArrayList<>(batchSize);
+
+        try {
+            while (rows.hasNext()) {
+                ItemImportRow row = rows.next();
+                row.validate(lineOf.applyAsLong(count + batch.size() + 1));
+                batch.add(row);
+                if (batch.size() == batchSize || !rows.hasNext()) {
+                    transactionTemplate.executeWithoutResult(status -> itemBulkRepository.insert(batch));
+                    batches++;
+                    if ((count + batch.size()) / progressInterval > count / progressInterval) {
+                        log.info("item import progress. rows={}, rows/s={}", count + batch.size(),
+                                rowsPerSecond(count + batch.size(), System.nanoTime() - start));
+                    }
+                    count += batch.size();
+                    batch.clear();
+                }
+            }
+        } finally {
+            //@CacheEvict 는 예외가 나면 실행되지 않는데, 실패해도 앞의 배치는 이미 커밋돼 있다.
+            if (batches > 0) {
+                cacheManager.getCache(ItemQueryService.ITEMS_CACHE).clear();
+            }
+        }
+
+        long elapsed = System.nanoTime() - start;
+        ItemImportResult result = new ItemImportResult(count, batches,
+                TimeUnit.NANOSECONDS.toMillis(elapsed), rowsPerSecond(count, elapsed));
+        log.info("item import finished. rows={}, batches={}, ms={}, rows/s={}",
+                result.getRows(), result.getBatches(), result.getElapsedMillis(), result.getRowsPerSecond());
+        return result;
+    }
+
+    private long rowsPerSecond(long rows, long elapsedNanos) {
+        return elapsedNanos == 0 ? 0 : rows * TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+}
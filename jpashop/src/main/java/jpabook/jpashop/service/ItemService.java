@@ -1,9 +1,12 @@
 package jpabook.jpashop.service;
 
-import jpabook.jpashop.domain.item.Book;
 import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.repository.ItemChangeSet;
 import jpabook.jpashop.repository.ItemRepository;
+import jpabook.jpashop.service.query.ItemQueryService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -15,19 +18,29 @@ import java.util.List;
 public class ItemService {
 
     private final ItemRepository itemRepository;
+    private final StockReservationEngine stockReservationEngine;
 
     @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = ItemQueryService.ITEM_CACHE, key = "#item.id"),
+            @CacheEvict(cacheNames = ItemQueryService.ITEMS_CACHE, allEntries = true)})
     public void saveItem(Item item) {
         itemRepository.save(item);
     }
 
-    //merge 쓰지 말고 항상 변경 감지로
+    //merge 도, 조회 후 변경 감지도 쓰지 않고 바뀐 컬럼만 update 1번 (version 이 다르면 OptimisticLockingFailureException)
     @Transactional
-    public void updateItem(Long itemId, Book bookParam) {
-        Item findItem = itemRepository.findOne(itemId);
-        findItem.setPrice(bookParam.getPrice());
-        findItem.setName(bookParam.getName());
-        findItem.setStockQuantity(bookParam.getStockQuantity());
+    @Caching(evict = {
+            @CacheEvict(cacheNames = ItemQueryService.ITEM_CACHE, key = "#itemId"),
+            @CacheEvict(cacheNames = ItemQueryService.ITEMS_CACHE, allEntries = true)})
+    public void updateItem(Long itemId, Long version, ItemChangeSet changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        itemRepository.update(itemId, version, changes);
+        if (changes.isStockQuantityChanged()) {
+            stockReservationEngine.evict(itemId);  //재고가 직접 바뀌었으므로 예약 카운터를 다시 로딩
+        }
     }
 
     //아이템 조회
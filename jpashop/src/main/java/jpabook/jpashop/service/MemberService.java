@@ -1,14 +1,20 @@
 package jpabook.jpashop.service;
 
 import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.exception.DuplicateMemberException;
+import jpabook.jpashop.repository.MemberNameDTO;
 import jpabook.jpashop.repository.MemberRepository;
+import jpabook.jpashop.repository.support.MemberNameFilter;
 import lombok.AllArgsConstructor;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.exception.ConstraintViolationException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 @Service
 @Transactional(readOnly = true)
@@ -16,30 +22,56 @@ import java.util.List;
 public class MemberService {
 
     private final MemberRepository memberRepository;
+    private final MemberNameFilter memberNameFilter;
 
     //회원 가입
+    //  조회 후 insert 는 동시에 같은 이름으로 가입하면 둘 다 통과한다. -> 최종 판단은 DB unique 제약(uk_member_name)
     @Transactional
     public Long join(Member member) {
         validateDuplicateMember(member);    //중복 회원 검증
-        memberRepository.save(member);
+        try {
+            memberRepository.saveAndFlush(member);
+        } catch (DataIntegrityViolationException e) {
+            if (isDuplicateName(e)) {
+                throw new DuplicateMemberException("이미 존재하는 회원입니다.", e);
+            }
+            throw e;
+        }
         return member.getId();
     }
 
     //중복 회원 검증 로직
+    //  Bloom filter 에 없는 이름은 확실히 처음 쓰는 이름이므로 조회하지 않는다. (대부분의 가입)
     private void validateDuplicateMember(Member member) {
         //EXCEPTION
-        List<Member> findMembers = memberRepository.findByName(member.getName());
-        if (!findMembers.isEmpty()) {
-            throw new IllegalStateException("이미 존재하는 회원입니다.");
+        if (memberNameFilter.mightContain(member.getName()) && memberRepository.existsByName(member.getName())) {
+            throw new DuplicateMemberException("이미 존재하는 회원입니다.");
         }
     }
 
+    private boolean isDuplicateName(DataIntegrityViolationException e) {
+        Throwable cause = e.getCause();
+        return cause instanceof ConstraintViolationException
+                && ((ConstraintViolationException) cause).getConstraintName() != null
+                && ((ConstraintViolationException) cause).getConstraintName().toLowerCase().contains(Member.NAME_UNIQUE_CONSTRAINT);
+    }
+
     //회원 조회
     //전체 조회
     public List<Member> findMembers(){
         return memberRepository.findAll();
     }
 
+    //이름 목록 조회 (keyset 페이징)
+    public List<MemberNameDTO> findMemberNames(Long lastMemberId, int limit) {
+        return memberRepository.findNamePage(lastMemberId, limit);
+    }
+
+    //이름 목록 스트리밍
+    public void streamMemberNames(Consumer<MemberNameDTO> consumer) {
+        memberRepository.streamNames(consumer);
+    }
+
     //단건 조회
     public Member findOne(Long memberId) {
         return memberRepository.findOne(memberId);
@@ -0,0 +1,148 @@
+package jpabook.jpashop.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+//비동기 일괄 주문 취소 파이프라인
+//  cancelOrder 는 요청 스레드에서 주문마다 orderItems -> item 을 지연 로딩(N+1)하고 재고를 하나씩 복구한다.
+//  결제 실패 등으로 대량 취소가 몰리면 요청 스레드가 수 초씩 묶인다.
+//  취소 요청은 크기가 제한된 큐에 넣고 바로 반환(CompletableFuture)하고,
+//  워커 스레드 1개가 큐에 쌓인 요청을 batchSize 만큼 모아서 OrderService.cancelOrders 로 한번에 처리한다.
+//      -큐가 가득 차면 QUEUE_FULL 로 즉시 응답한다. (backpressure)
+//      -워커가 1개라 같은 주문에 대한 취소가 동시에 처리되지 않는다.
+//      -결과는 response-timeout-ms 안에 반드시 채워진다. (시간 초과 TIMEOUT, 종료 중 REJECTED, 처리 중 오류 FAILED)
+//      -배치 트랜잭션이 실패하면 주문마다 따로 다시 처리한다. (주문 하나 때문에 배치 전체가 FAILED 가 되지 않도록)
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OrderCancelPipeline {
+
+    private final OrderService orderService;
+
+    @Value("${jpashop.cancel.queue-capacity:10000}")
+    private int queueCapacity;
+    @Value("${jpashop.cancel.batch-size:500}")
+    private int batchSize;
+    @Value("${jpashop.cancel.response-timeout-ms:10000}")
+    private long responseTimeoutMillis;
+
+    private BlockingQueue<CancelRequest> queue;
+    private Thread worker;
+    private volatile boolean stopped;
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        worker = new Thread(this::run, "order-cancel-pipeline");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        stopped = true;
+        worker.interrupt();
+        worker.join(5000);
+        rejectPending();    //워커가 끝난 뒤에 들어왔거나 제때 처리되지 못한 요청
+    }
+
+    //취소 요청 (결과는 처리 후에 채워진다)
+    public CompletableFuture<CancelOutcome> submit(Long orderId) {
+        CancelRequest request = new CancelRequest(orderId);
+        request.result.completeOnTimeout(CancelOutcome.TIMEOUT, responseTimeoutMillis, TimeUnit.MILLISECONDS);
+        if (stopped) {
+            request.result.complete(CancelOutcome.REJECTED);
+        } else if (!queue.offer(request)) {
+            request.result.complete(CancelOutcome.QUEUE_FULL);
+        } else if (stopped) {
+            rejectPending();    //stop() 과 경합해서 워커가 이미 끝난 경우
+        }
+        return request.result;
+    }
+
+    private void rejectPending() {
+        List<CancelRequest> pending = new ArrayList<>();
+        queue.drainTo(pending);
+        pending.forEach(r -> r.result.complete(CancelOutcome.REJECTED));
+    }
+
+    private void run() {
+        List<CancelRequest> batch = new ArrayList<>(batchSize);
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            queue.drainTo(batch, batchSize - 1);
+            process(batch);
+            batch.clear();
+        }
+
+        //종료 시 남은 요청 처리
+        while (queue.drainTo(batch, batchSize) > 0) {
+            process(batch);
+            batch.clear();
+        }
+    }
+
+    private void process(List<CancelRequest> batch) {
+        Map<Long, List<CancelRequest>> byOrderId = new LinkedHashMap<>();
+        batch.forEach(r -> byOrderId.computeIfAbsent(r.orderId, id -> new ArrayList<>()).add(r));
+
+        try {
+            Map<Long, CancelOutcome> outcomes = orderService.cancelOrders(byOrderId.keySet());
+            byOrderId.forEach((orderId, requests) -> complete(requests, outcomes.getOrDefault(orderId, CancelOutcome.FAILED)));
+        } catch (Throwable e) {     //Error 로 워커가 죽으면 이후 요청이 모두 응답을 못 받는다.
+            if (byOrderId.size() == 1) {
+                log.error("order cancel failed. orderId={}", byOrderId.keySet(), e);
+                batch.forEach(r -> r.result.complete(CancelOutcome.FAILED));
+                return;
+            }
+            log.warn("order cancel batch failed, retrying one by one. size={}", byOrderId.size(), e);
+            byOrderId.forEach(this::processOne);
+        }
+    }
+
+    //배치가 실패했을 때 주문 하나씩 별도 트랜잭션으로 처리
+    private void processOne(Long orderId, List<CancelRequest> requests) {
+        try {
+            CancelOutcome outcome = orderService.cancelOrders(List.of(orderId)).getOrDefault(orderId, CancelOutcome.FAILED);
+            complete(requests, outcome);
+        } catch (Throwable e) {
+            log.error("order cancel failed. orderId={}", orderId, e);
+            requests.forEach(r -> r.result.complete(CancelOutcome.FAILED));
+        }
+    }
+
+    //같은 배치에 중복 요청이 있으면 첫 요청만 취소 처리된다.
+    private void complete(List<CancelRequest> requests, CancelOutcome outcome) {
+        for (int i = 0; i < requests.size(); i++) {
+            requests.get(i).result.complete(i == 0 || outcome != CancelOutcome.CANCELED
+                    ? outcome : CancelOutcome.ALREADY_CANCELED);
+        }
+    }
+
+    private static class CancelRequest {
+        private final Long orderId;
+        private final CompletableFuture<CancelOutcome> result = new CompletableFuture<>();
+
+        CancelRequest(Long orderId) {
+            this.orderId = orderId;
+        }
+    }
+}
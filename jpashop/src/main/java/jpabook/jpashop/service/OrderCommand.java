@@ -0,0 +1,22 @@
+package jpabook.jpashop.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+//일괄 주문 요청 1건 (회원 1명 + 주문상품 여러 개 -> Order 1건)
+@Getter
+@AllArgsConstructor
+public class OrderCommand {
+
+    private Long memberId;
+    private List<OrderLine> orderLines;
+
+    @Getter
+    @AllArgsConstructor
+    public static class OrderLine {
+        private Long itemId;
+        private int count;
+    }
+}
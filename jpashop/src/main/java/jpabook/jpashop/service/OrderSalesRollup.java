@@ -0,0 +1,120 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.repository.sales.OrderSalesLine;
+import jpabook.jpashop.repository.sales.SalesKey;
+import jpabook.jpashop.repository.sales.SalesRollupRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+//주문 매출 롤업 갱신
+//  관리 화면이 기간 매출을 볼 때마다 주문 -> orderItems 를 모두 로딩해서 getTotalPrice() 를 합산하지 않도록
+//  OrderService 의 주문/취소 시점에 일별 상품/회원 매출 롤업에 증감분만 반영한다.
+//  -트랜잭션 안에서는 증감분을 모아 두었다가 커밋 직전(beforeCommit)에 (일자, id)별로 한번씩 반영한다.
+//      -> 주문과 롤업이 같이 커밋/롤백되고, 인기 상품 row 의 락은 커밋 직전 잠깐만 잡는다.
+//  -취소는 원래 주문일의 매출에서 뺀다.
+@Component
+@RequiredArgsConstructor
+public class OrderSalesRollup {
+
+    private final SalesRollupRepository salesRollupRepository;
+
+    public void placed(Order order) {
+        add(linesOf(order), 1);
+    }
+
+    public void canceled(Order order) {
+        add(linesOf(order), -1);
+    }
+
+    public void canceled(List<OrderSalesLine> lines) {
+        add(lines, -1);
+    }
+
+    //롤업을 주문 데이터로 다시 계산
+    public void rebuild() {
+        salesRollupRepository.rebuild();
+    }
+
+    private void add(List<OrderSalesLine> lines, int sign) {
+        Deltas deltas = currentDeltas();
+        Set<Long> orderIds = new HashSet<>();
+        for (OrderSalesLine line : lines) {
+            long revenue = (long) line.getOrderPrice() * line.getCount() * sign;
+            deltas.item(new SalesKey(line.getOrderDate().toLocalDate(), line.getItemId()), sign, line.getCount() * sign, revenue);
+            deltas.member(new SalesKey(line.getOrderDate().toLocalDate(), line.getMemberId()),
+                    orderIds.add(line.getOrderId()) ? sign : 0, revenue);
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            flush(deltas);
+        }
+    }
+
+    //현재 트랜잭션의 증감분 (트랜잭션이 없으면 바로 반영할 임시 버퍼)
+    private Deltas currentDeltas() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return new Deltas();
+        }
+        Deltas deltas = (Deltas) TransactionSynchronizationManager.getResource(this);
+        if (deltas == null) {
+            Deltas created = new Deltas();
+            TransactionSynchronizationManager.bindResource(this, created);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    flush(created);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(OrderSalesRollup.this);
+                }
+            });
+            deltas = created;
+        }
+        return deltas;
+    }
+
+    private void flush(Deltas deltas) {
+        salesRollupRepository.addItemSales(deltas.items);
+        salesRollupRepository.addMemberSales(deltas.members);
+    }
+
+    private List<OrderSalesLine> linesOf(Order order) {
+        List<OrderSalesLine> lines = new ArrayList<>();
+        for (OrderItem orderItem : order.getOrderItems()) {
+            lines.add(new OrderSalesLine(order.getId(), order.getOrderDate(), order.getMember().getId(),
+                    orderItem.getItem().getId(), orderItem.getOrderPrice(), orderItem.getCount()));
+        }
+        return lines;
+    }
+
+    private static class Deltas {
+
+        private final SortedMap<SalesKey, long[]> items = new TreeMap<>();      //[주문상품 수, 수량, 매출]
+        private final SortedMap<SalesKey, long[]> members = new TreeMap<>();    //[주문 수, 매출]
+
+        void item(SalesKey key, long orderCount, long quantity, long revenue) {
+            long[] delta = items.computeIfAbsent(key, k -> new long[3]);
+            delta[0] += orderCount;
+            delta[1] += quantity;
+            delta[2] += revenue;
+        }
+
+        void member(SalesKey key, long orderCount, long revenue) {
+            long[] delta = members.computeIfAbsent(key, k -> new long[2]);
+            delta[0] += orderCount;
+            delta[1] += revenue;
+        }
+    }
+}
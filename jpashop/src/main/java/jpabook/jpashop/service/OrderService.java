@@ -1,19 +1,29 @@
 package jpabook.jpashop.service;
 
 import jpabook.jpashop.domain.Delivery;
+import jpabook.jpashop.domain.DeliveryStatus;
 import jpabook.jpashop.domain.Member;
 import jpabook.jpashop.domain.Order;
 import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.domain.OrderStatus;
 import jpabook.jpashop.domain.item.Item;
 import jpabook.jpashop.repository.ItemRepository;
+import jpabook.jpashop.repository.ItemStockRepository;
 import jpabook.jpashop.repository.MemberRepository;
+import jpabook.jpashop.repository.OrderCancelTarget;
 import jpabook.jpashop.repository.OrderRepository;
 import jpabook.jpashop.repository.OrderSearch;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional(readOnly = true)
@@ -23,6 +33,13 @@ public class OrderService {
     private final OrderRepository orderRepository;
     private final MemberRepository memberRepository;
     private final ItemRepository itemRepository;
+    private final ItemStockRepository itemStockRepository;
+    private final StockReservationEngine stockReservationEngine;
+    private final OrderSalesRollup orderSalesRollup;
+
+    //true 면 재고를 엔티티 변경 감지 대신 StockReservationEngine 으로 예약/반영한다.
+    @Value("${jpashop.stock.reservation-enabled:false}")
+    private boolean stockReservationEnabled;
 
     //주문
     @Transactional
@@ -37,24 +54,141 @@ public class OrderService {
         delivery.setAddress(member.getAddress());
 
         //주문상품 생성
-        OrderItem orderItem = OrderItem.createOrderItem(item, item.getPrice(), count);
+        OrderItem orderItem = createOrderItem(item, count);
 
         //주문 생성
         Order order = Order.createOrder(member, delivery, orderItem);
 
         //주문 저장
         orderRepository.save(order);
+        orderSalesRollup.placed(order);
 
         return order.getId();
     }
 
+    //일괄 주문 (장바구니 결제, 대량 주문 등록)
+    //  order() 를 여러 번 호출하면 주문마다 트랜잭션 + 회원/상품 em.find + insert 가 따로 나간다.
+    //  회원, 상품은 IN 쿼리로 한번에 조회하고, 주문 1건에 여러 주문상품을 담아서 한 트랜잭션에서 저장한다.
+    //  식별자는 시퀀스 pooled 방식이라 insert 는 hibernate.jdbc.batch_size 단위로 묶여서 나간다.
+    @Transactional
+    public List<Long> placeOrders(List<OrderCommand> commands) {
+        //엔티티 조회 (IN 쿼리 1번씩)
+        Map<Long, Member> members = memberRepository.findAllByIds(commands.stream()
+                        .map(OrderCommand::getMemberId)
+                        .collect(Collectors.toSet())).stream()
+                .collect(Collectors.toMap(Member::getId, m -> m));
+        Map<Long, Item> items = itemRepository.findAllByIds(commands.stream()
+                        .flatMap(c -> c.getOrderLines().stream())
+                        .map(OrderCommand.OrderLine::getItemId)
+                        .collect(Collectors.toSet())).stream()
+                .collect(Collectors.toMap(Item::getId, i -> i));
+
+        List<Order> orders = new ArrayList<>();
+        for (OrderCommand command : commands) {
+            Member member = members.get(command.getMemberId());
+            if (member == null) {
+                throw new IllegalArgumentException("존재하지 않는 회원입니다. memberId=" + command.getMemberId());
+            }
+
+            Delivery delivery = new Delivery();
+            delivery.setAddress(member.getAddress());
+
+            OrderItem[] orderItems = command.getOrderLines().stream()
+                    .map(line -> {
+                        Item item = items.get(line.getItemId());
+                        if (item == null) {
+                            throw new IllegalArgumentException("존재하지 않는 상품입니다. itemId=" + line.getItemId());
+                        }
+                        return createOrderItem(item, line.getCount());
+                    })
+                    .toArray(OrderItem[]::new);
+
+            Order order = Order.createOrder(member, delivery, orderItems);
+            orderRepository.save(order);
+            orderSalesRollup.placed(order);
+            orders.add(order);
+        }
+
+        return orders.stream()
+                .map(Order::getId)
+                .collect(Collectors.toList());
+    }
+
+    private OrderItem createOrderItem(Item item, int count) {
+        if (stockReservationEnabled) {
+            stockReservationEngine.reserve(item.getId(), count);
+            return OrderItem.createReservedOrderItem(item, item.getPrice(), count);
+        }
+        return OrderItem.createOrderItem(item, item.getPrice(), count);
+    }
+
     //주문 취소
+    //  주문 row 를 잠그고 조회하므로 같은 주문을 동시에 취소해도 재고 복구와 매출 롤업 차감은 한 번만 일어난다.
     @Transactional
     public void cancelOrder(Long orderId) {
         //주문 엔티티 조회
-        Order order = orderRepository.findOne(orderId);
+        Order order = orderRepository.findOneForUpdate(orderId);
+        if (order.getStatus() == OrderStatus.CANCEL) {
+            return;     //이미 취소된 주문 (재고를 다시 복구하지 않는다)
+        }
         //취소
-        order.cancel();
+        if (stockReservationEnabled) {
+            order.markCanceled();
+            order.getOrderItems().forEach(oi -> stockReservationEngine.releaseAfterCommit(oi.getItem().getId(), oi.getCount()));
+        } else {
+            order.cancel();
+        }
+        orderSalesRollup.canceled(order);
+    }
+
+    //일괄 주문 취소 (OrderCancelPipeline 에서 호출)
+    //  주문 엔티티를 하나씩 로딩해서 orderItems -> item 을 지연 로딩하지 않고
+    //      1. 주문 row 를 잠그고(select ... for update) 주문/배송 상태만 조회해서 취소 가능 여부 검증
+    //      2. 주문 상태는 update ... where o.id in :ids and o.status = ORDER 벌크 연산 1번
+    //         잠금을 잡고 있으므로 바뀐 row 수는 취소 대상 수와 같아야 한다. (다르면 롤백)
+    //      3. 상품별 수량 합계를 group by 로 조회해서 재고를 상품당 1번만 복구 (JDBC batch)
+    //      4. 매출 롤업에서 빼기
+    //  cancelOrder 도 같은 row 를 잠그므로, 동시에 취소해도 재고 복구/매출 차감은 한 번만 일어난다.
+    @Transactional
+    public Map<Long, CancelOutcome> cancelOrders(Collection<Long> orderIds) {
+        Map<Long, CancelOutcome> outcomes = new HashMap<>();
+        orderIds.forEach(id -> outcomes.put(id, CancelOutcome.NOT_FOUND));
+
+        orderRepository.lockAll(orderIds);
+        List<Long> cancelIds = new ArrayList<>();
+        for (OrderCancelTarget target : orderRepository.findCancelTargets(orderIds)) {
+            if (target.getOrderStatus() == OrderStatus.CANCEL) {
+                outcomes.put(target.getOrderId(), CancelOutcome.ALREADY_CANCELED);
+            } else if (target.getDeliveryStatus() == DeliveryStatus.COMP) {
+                outcomes.put(target.getOrderId(), CancelOutcome.DELIVERY_COMPLETED);
+            } else {
+                outcomes.put(target.getOrderId(), CancelOutcome.CANCELED);
+                cancelIds.add(target.getOrderId());
+            }
+        }
+        if (cancelIds.isEmpty()) {
+            return outcomes;
+        }
+
+        //주문 상태 변경
+        int canceled = orderRepository.cancelAll(cancelIds);
+        if (canceled != cancelIds.size()) {
+            throw new IllegalStateException("취소 대상 주문 상태가 변경되었습니다. expected=" + cancelIds.size() + ", canceled=" + canceled);
+        }
+
+        //재고 복구
+        Map<Long, Integer> countsByItem = orderRepository.sumCountsByItem(cancelIds);
+        if (stockReservationEnabled) {
+            countsByItem.forEach(stockReservationEngine::releaseAfterCommit);
+        } else {
+            Map<Long, Integer> deltas = new HashMap<>();
+            countsByItem.forEach((itemId, count) -> deltas.put(itemId, -count));
+            itemStockRepository.decreaseStocks(deltas);
+        }
+
+        //매출 롤업에서 빼기
+        orderSalesRollup.canceled(orderRepository.findSalesLines(cancelIds));
+        return outcomes;
     }
 
     //검색
@@ -0,0 +1,171 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.exception.NotEnoughStockException;
+import jpabook.jpashop.repository.ItemStockRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PreDestroy;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//재고 예약 엔진
+//  Item.removeStock 은 엔티티 값을 바꾸고 변경 감지로 stock_quantity 를 통째로 덮어쓴다.
+//      -> 락이 없으면 동시 주문에서 초과 판매, 비관적 락을 걸면 인기 상품 구매자가 한 row 에 줄을 선다.
+//  그래서 상품별 재고를 메모리 카운터(AtomicInteger, CAS)로 예약하고,
+//  누적된 차감량만 주기적으로 모아서 batch update(stock = stock - ? where stock >= ?)로 DB 에 반영한다.
+//      -ConcurrentHashMap 이 상품별로 잠금을 나누고(striping), 상품 안에서는 CAS 로만 경쟁한다.
+//      -트랜잭션이 롤백되면 예약한 수량을 되돌린다.
+//      -DB 가 반영을 거절하면(외부에서 재고를 줄인 경우) 이미 커밋된 주문의 차감량이므로 버리지 않고 pending 에 되돌려 다음 flush 때 다시 시도한다.
+//       카운터는 버리고 다음 예약 때 DB 재고 - 미반영 차감량으로 다시 읽는다. (재고가 다시 채워질 때까지 새 예약은 거절된다)
+//      -카운터 로딩과 flush 는 같은 모니터(this)로 막는다.
+//       flush 는 차감량을 pending 에서 꺼낸 뒤 DB 에 반영하므로, 그 사이에 로딩하면 꺼낸 차감량이 DB 에도 pending 에도 없어서 재고가 부풀려진다.
+//      -예약은 pending 에 먼저 더하고 카운터를 줄인다. (로딩이 끼어들어도 진행 중인 예약이 빠지지 않는다)
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StockReservationEngine {
+
+    private final ItemStockRepository itemStockRepository;
+
+    private final ConcurrentHashMap<Long, AtomicInteger> available = new ConcurrentHashMap<>();   //예약 가능 재고
+    private final ConcurrentHashMap<Long, AtomicInteger> pending = new ConcurrentHashMap<>();     //DB 에 아직 반영 안 된 차감량
+    private final Set<Long> rejected = ConcurrentHashMap.newKeySet();                               //DB 가 반영을 거절한 상품 (재고 보정 대상)
+
+    //재고 예약
+    public void reserve(Long itemId, int quantity) {
+        AtomicInteger stock = available.get(itemId);
+        if (stock == null) {
+            stock = load(itemId);
+        }
+
+        AtomicInteger delta = pending.computeIfAbsent(itemId, id -> new AtomicInteger());
+        delta.addAndGet(quantity);
+        while (true) {
+            int current = stock.get();
+            if (current < quantity) {
+                delta.addAndGet(-quantity);
+                throw new NotEnoughStockException("need more stock");
+            }
+            if (stock.compareAndSet(current, current - quantity)) {
+                break;
+            }
+        }
+
+        //주문 트랜잭션이 롤백되면 예약 취소
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        release(itemId, quantity);
+                    }
+                }
+            });
+        }
+    }
+
+    //예약 반환 (주문 취소, 롤백)
+    public void release(Long itemId, int quantity) {
+        AtomicInteger stock = available.get(itemId);
+        if (stock != null) {
+            stock.addAndGet(quantity);
+        }
+        pending.computeIfAbsent(itemId, id -> new AtomicInteger()).addAndGet(-quantity);
+    }
+
+    //트랜잭션이 커밋된 후에 예약 반환 (취소 트랜잭션이 롤백되면 반환하지 않는다)
+    public void releaseAfterCommit(Long itemId, int quantity) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            release(itemId, quantity);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                release(itemId, quantity);
+            }
+        });
+    }
+
+    //카운터 로딩 (flush 와 동시에 실행되지 않는다)
+    //  ConcurrentHashMap.computeIfAbsent 안에서 모니터를 잡으면 flush 의 evict(remove) 와 교착될 수 있으므로 get/put 으로 처리한다.
+    private synchronized AtomicInteger load(Long itemId) {
+        AtomicInteger stock = available.get(itemId);
+        if (stock == null) {
+            stock = new AtomicInteger(itemStockRepository.findStockQuantity(itemId) - getPending(itemId));
+            available.put(itemId, stock);
+        }
+        return stock;
+    }
+
+    //상품 수정 등으로 DB 재고가 직접 바뀐 경우 카운터를 버린다. (다음 예약 때 다시 로딩)
+    public void evict(Long itemId) {
+        available.remove(itemId);
+    }
+
+    //DB 에 아직 반영 안 된 차감량
+    public int getPending(Long itemId) {
+        AtomicInteger delta = pending.get(itemId);
+        return delta == null ? 0 : delta.get();
+    }
+
+    //DB 가 차감을 거절해서 재고 보정이 필요한 상품
+    public Set<Long> getRejected() {
+        return Collections.unmodifiableSet(rejected);
+    }
+
+    //누적된 차감량을 한번에 DB 에 반영
+    @Scheduled(fixedDelayString = "${jpashop.stock.flush-interval-ms:200}")
+    public synchronized void flush() {
+        Map<Long, Integer> deltas = new HashMap<>();
+        pending.forEach((itemId, delta) -> {
+            int value = delta.getAndSet(0);
+            if (value != 0) {
+                deltas.put(itemId, value);
+            }
+        });
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        List<Long> failed;
+        try {
+            failed = itemStockRepository.decreaseStocks(deltas);
+        } catch (RuntimeException e) {
+            //DB 반영 실패 -> 다음 flush 때 다시 시도
+            deltas.forEach((itemId, value) -> pending.computeIfAbsent(itemId, id -> new AtomicInteger()).addAndGet(value));
+            log.error("stock flush failed. deltas={}", deltas, e);
+            return;
+        }
+
+        for (Long itemId : failed) {
+            //커밋된 주문의 차감량이므로 버리지 않는다. 재고가 다시 채워지면 다음 flush 때 반영된다.
+            int value = deltas.remove(itemId);
+            pending.computeIfAbsent(itemId, id -> new AtomicInteger()).addAndGet(value);
+            evict(itemId);
+            if (rejected.add(itemId)) {
+                log.error("stock flush rejected by database. itemId={}, delta={}", itemId, value);
+            }
+        }
+        for (Long itemId : deltas.keySet()) {
+            if (rejected.remove(itemId)) {
+                log.info("stock flush recovered. itemId={}", itemId);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+}
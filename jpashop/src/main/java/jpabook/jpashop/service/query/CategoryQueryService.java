@@ -0,0 +1,37 @@
+package jpabook.jpashop.service.query;
+
+import jpabook.jpashop.repository.CategoryRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+//카테고리 조회 전용 서비스
+//  카테고리 트리는 거의 바뀌지 않으므로 트리 전체를 캐시에 보관한다.
+//  카테고리를 추가하면 CategoryService 에서 캐시를 제거한다.
+@Service
+@Transactional(readOnly = true)
+@RequiredArgsConstructor
+public class CategoryQueryService {
+
+    public static final String CATEGORY_TREE_CACHE = "categoryTree";
+
+    private final CategoryRepository categoryRepository;
+
+    @Cacheable(cacheNames = CATEGORY_TREE_CACHE, key = "'all'")
+    public CategoryTree findTree() {
+        return new CategoryTree(categoryRepository.findAllNodes());
+    }
+
+    //카테고리와 모든 하위 카테고리에 속한 상품 페이징
+    //  하위 카테고리 id 는 closure table 에서 한번에 조회 (트리 깊이와 무관하게 쿼리 2번)
+    public List<ItemQueryDto> findSubtreeItems(Long categoryId, int offset, int limit) {
+        List<Long> categoryIds = categoryRepository.findDescendantIds(categoryId);
+        return categoryRepository.findItems(categoryIds, offset, limit).stream()
+                .map(ItemQueryDto::new)
+                .collect(Collectors.toList());
+    }
+}
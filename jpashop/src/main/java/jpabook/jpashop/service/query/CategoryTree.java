@@ -0,0 +1,53 @@
+package jpabook.jpashop.service.query;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+//캐시에 보관하는 카테고리 트리 (불변)
+public class CategoryTree {
+
+    private final Map<Long, Node> nodes = new HashMap<>();
+    private final List<Node> roots = new ArrayList<>();
+
+    //(id, 이름, 부모 id)
+    CategoryTree(List<Object[]> nodeRows) {
+        for (Object[] row : nodeRows) {
+            Long id = (Long) row[0];
+            nodes.put(id, new Node(id, (String) row[1]));
+        }
+        for (Object[] row : nodeRows) {
+            Node node = nodes.get((Long) row[0]);
+            Long parentId = (Long) row[2];
+            if (parentId == null) {
+                roots.add(node);
+            } else {
+                nodes.get(parentId).children.add(node);
+            }
+        }
+    }
+
+    public List<Node> getRoots() {
+        return Collections.unmodifiableList(roots);
+    }
+
+    @Getter
+    public static class Node {
+        private final Long id;
+        private final String name;
+        private final List<Node> children = new ArrayList<>();
+
+        Node(Long id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+        public List<Node> getChildren() {
+            return Collections.unmodifiableList(children);
+        }
+    }
+}
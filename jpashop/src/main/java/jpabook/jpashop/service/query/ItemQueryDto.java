@@ -0,0 +1,36 @@
+package jpabook.jpashop.service.query;
+
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import lombok.Getter;
+
+//캐시에 보관하는 상품 조회용 DTO
+//  엔티티를 캐시에 넣으면 영속성 컨텍스트 밖에서 지연 로딩(categories)이 터지고, 여러 스레드가 같은 객체를 공유하게 된다.
+//  그래서 화면에 필요한 값만 담은 불변 DTO 로 변환해서 캐시한다.
+@Getter
+public class ItemQueryDto {
+
+    private final Long id;
+    private final String name;
+    private final int price;
+    private final int stockQuantity;
+    private final Long version;
+
+    private final String author;    //Book
+    private final String isbn;      //Book
+
+    public ItemQueryDto(Item item) {
+        id = item.getId();
+        name = item.getName();
+        price = item.getPrice();
+        stockQuantity = item.getStockQuantity();
+        version = item.getVersion();
+        if (item instanceof Book) {
+            author = ((Book) item).getAuthor();
+            isbn = ((Book) item).getIsbn();
+        } else {
+            author = null;
+            isbn = null;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package jpabook.jpashop.service.query;
+
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.repository.ItemRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+//상품 화면 조회 전용 서비스 (커맨드와 쿼리 분리)
+//  상품(Book, Album, Movie)은 거의 바뀌지 않는데 화면을 볼 때마다 DB 를 조회한다.
+//  Caffeine 캐시(크기 + 시간 기반 제거)에 DTO 로 보관하고, 상품 등록/수정 시 ItemService 에서 명시적으로 제거한다.
+//  제거는 커밋 후에 실행된다. (CacheConfig)
+//  주문으로 바뀌는 재고 수량은 캐시 만료 시간(spring.cache.caffeine.spec) 만큼 늦게 반영될 수 있다.
+//  캐시 hit/miss/eviction 은 actuator 의 cache.gets, cache.evictions 메트릭으로 확인한다.
+@Service
+@Transactional(readOnly = true)
+@RequiredArgsConstructor
+public class ItemQueryService {
+
+    public static final String ITEM_CACHE = "item";
+    public static final String ITEMS_CACHE = "items";
+
+    private final ItemRepository itemRepository;
+
+    //전체 조회
+    @Cacheable(cacheNames = ITEMS_CACHE, key = "'all'")
+    public List<ItemQueryDto> findItems() {
+        List<Item> items = itemRepository.findAll();
+        return Collections.unmodifiableList(items.stream()
+                .map(ItemQueryDto::new)
+                .collect(Collectors.toList()));
+    }
+
+    //단건 조회
+    @Cacheable(cacheNames = ITEM_CACHE, key = "#itemId", unless = "#result == null")
+    public ItemQueryDto findOne(Long itemId) {
+        Item item = itemRepository.findOne(itemId);
+        return item == null ? null : new ItemQueryDto(item);
+    }
+
+    //수정 화면용 단건 조회 (캐시를 거치지 않는다)
+    //  재고 예약을 끄면 주문/취소의 재고 변경도 변경 감지로 version 을 올리는데, 캐시는 만료될 때까지 이전 version 을 들고 있다.
+    //  수정 화면은 이 version 으로 낙관적 락을 걸기 때문에 항상 DB 에서 새로 읽는다.
+    public ItemQueryDto findOneForEdit(Long itemId) {
+        Item item = itemRepository.findOne(itemId);
+        return item == null ? null : new ItemQueryDto(item);
+    }
+}
@@ -0,0 +1,19 @@
+package jpabook.jpashop.service.query;
+
+//한 번에 조회하는 건수(limit 파라미터) 제한
+//  검증 없이 SQL limit 으로 넘기면 요청 한 번으로 테이블 전체를 읽을 수 있다.
+public final class PageLimit {
+
+    public static final int MAX = 1000;
+
+    private PageLimit() {
+    }
+
+    //1 ~ MAX 가 아니면 IllegalArgumentException
+    public static int check(int limit) {
+        if (limit < 1 || limit > MAX) {
+            throw new IllegalArgumentException("limit 은 1 ~ " + MAX + " 사이여야 합니다.");
+        }
+        return limit;
+    }
+}
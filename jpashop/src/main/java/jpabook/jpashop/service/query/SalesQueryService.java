@@ -0,0 +1,47 @@
+package jpabook.jpashop.service.query;
+
+import jpabook.jpashop.repository.sales.DailySalesDTO;
+import jpabook.jpashop.repository.sales.ItemSalesDTO;
+import jpabook.jpashop.repository.sales.MemberSalesDTO;
+import jpabook.jpashop.repository.sales.SalesRollupRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+//매출 대시보드 조회 전용 서비스
+//  주문을 읽지 않고 일별 롤업(OrderSalesRollup)만 합산한다. -> 조회 비용이 주문 수가 아니라 (일수 x 상품/회원 수)에 비례
+@Service
+@Transactional(readOnly = true)
+@RequiredArgsConstructor
+public class SalesQueryService {
+
+    public static final int MAX_DAYS = 366;
+
+    private final SalesRollupRepository salesRollupRepository;
+
+    public List<ItemSalesDTO> findItemSales(LocalDate from, LocalDate to, int limit) {
+        validate(from, to, limit);
+        return salesRollupRepository.findItemSales(from, to, limit);
+    }
+
+    public List<MemberSalesDTO> findMemberSales(LocalDate from, LocalDate to, int limit) {
+        validate(from, to, limit);
+        return salesRollupRepository.findMemberSales(from, to, limit);
+    }
+
+    public List<DailySalesDTO> findDailySales(LocalDate from, LocalDate to) {
+        validate(from, to, 1);
+        return salesRollupRepository.findDailySales(from, to);
+    }
+
+    private void validate(LocalDate from, LocalDate to, int limit) {
+        if (from.isAfter(to) || ChronoUnit.DAYS.between(from, to) >= MAX_DAYS) {
+            throw new IllegalArgumentException("조회 기간은 " + MAX_DAYS + "일 이내여야 합니다. from=" + from + ", to=" + to);
+        }
+        PageLimit.check(limit);
+    }
+}
@@ -0,0 +1,29 @@
+package jpabook.jpashop.web;
+
+import jpabook.jpashop.repository.support.FetchPlan;
+import jpabook.jpashop.repository.support.FetchPlanContext;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+//핸들러의 @FetchPlan 을 요청 동안 FetchPlanContext 에 담는다.
+public class FetchPlanInterceptor implements HandlerInterceptor {
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (handler instanceof HandlerMethod) {
+            FetchPlan fetchPlan = ((HandlerMethod) handler).getMethodAnnotation(FetchPlan.class);
+            if (fetchPlan != null) {
+                FetchPlanContext.set(fetchPlan.value());
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        FetchPlanContext.clear();
+    }
+}
@@ -0,0 +1,125 @@
+package jpabook.jpashop;
+
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.service.OrderSalesRollup;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSetMetaData;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import static org.junit.Assert.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:load-test-data;DB_CLOSE_DELAY=-1",
+        "jpashop.load-test.members=100",
+        "jpashop.load-test.items=30",
+        "jpashop.load-test.orders=500",
+        "jpashop.load-test.category-depth=2",
+        "jpashop.load-test.category-fanout=3",
+        "jpashop.load-test.batch-size=64",
+        "jpashop.load-test.threads=4"})
+@ActiveProfiles(LoadTestDataGenerator.PROFILE)
+@Transactional
+public class LoadTestDataGeneratorTest {
+
+    @Autowired JdbcTemplate jdbcTemplate;
+    @Autowired EntityManager em;
+    @Autowired LoadTestDataProperties properties;
+    @Autowired TransactionTemplate transactionTemplate;
+    @Autowired OrderSalesRollup orderSalesRollup;
+
+    //테이블별 checksum 대상 (주문일은 실행한 날짜 기준이므로 시각만, 매출 롤업은 날짜 순서만 비교)
+    static final Map<String, String> CHECKSUM_QUERIES = new LinkedHashMap<>();
+    static {
+        CHECKSUM_QUERIES.put("member", "select * from member order by member_id");
+        CHECKSUM_QUERIES.put("item", "select * from item order by item_id");
+        CHECKSUM_QUERIES.put("category", "select * from category order by category_id");
+        CHECKSUM_QUERIES.put("category_closure", "select * from category_closure order by category_closure_id");
+        CHECKSUM_QUERIES.put("category_item", "select * from category_item order by category_id, item_id");
+        CHECKSUM_QUERIES.put("delivery", "select * from delivery order by delivery_id");
+        CHECKSUM_QUERIES.put("orders", "select order_id, member_id, delivery_id, cast(order_date as time), status from orders order by order_id");
+        CHECKSUM_QUERIES.put("order_item", "select * from order_item order by order_item_id");
+        CHECKSUM_QUERIES.put("daily_item_sales", "select item_id, order_count, quantity, revenue from daily_item_sales order by sales_date, item_id");
+        CHECKSUM_QUERIES.put("daily_member_sales", "select member_id, order_count, revenue from daily_member_sales order by sales_date, member_id");
+    }
+
+    @Test
+    public void 부하테스트_데이터_생성() throws Exception {
+        assertEquals(Integer.valueOf(100), jdbcTemplate.queryForObject("select count(*) from member", Integer.class));
+        assertEquals(Integer.valueOf(30), jdbcTemplate.queryForObject("select count(*) from item", Integer.class));
+        assertEquals(Integer.valueOf(10), jdbcTemplate.queryForObject("select count(*) from item where dtype = 'B'", Integer.class));
+        assertEquals("카테고리 3 + 9", Integer.valueOf(12), jdbcTemplate.queryForObject("select count(*) from category", Integer.class));
+        assertEquals("리프마다 부모 1개", Integer.valueOf(9), jdbcTemplate.queryForObject("select count(*) from category_closure", Integer.class));
+        assertEquals(Integer.valueOf(500), jdbcTemplate.queryForObject("select count(*) from orders", Integer.class));
+        assertTrue(jdbcTemplate.queryForObject("select count(*) from order_item", Integer.class) >= 500);
+        assertEquals("InitDb 는 실행되지 않는다.", Integer.valueOf(0),
+                jdbcTemplate.queryForObject("select count(*) from member where name = 'userA'", Integer.class));
+    }
+
+    //컨텍스트가 threads=4 로 만든 데이터를 지우고 threads=1 로 다시 만들어서 비교한다.
+    //  커밋된 데이터를 지우고 다시 넣으므로 테스트 트랜잭션 밖에서 실행한다. (다시 만든 데이터는 처음과 같다)
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void 스레드_수와_상관없이_같은_데이터() throws Exception {
+        Map<String, Long> parallel = checksums();
+
+        deleteAll();
+        LoadTestDataProperties singleThread = new LoadTestDataProperties();
+        BeanUtils.copyProperties(properties, singleThread);
+        singleThread.setThreads(1);
+        new LoadTestDataGenerator(singleThread, jdbcTemplate, transactionTemplate, orderSalesRollup).generate();
+
+        assertEquals("seed 가 같으면 threads=4 와 threads=1 의 데이터가 같다.", parallel, checksums());
+    }
+
+    @Test
+    public void 생성_후_엔티티_저장() throws Exception {
+        Member member = new Member();
+        member.setName("after-load-test");
+        em.persist(member);
+        em.flush();
+
+        assertTrue("시퀀스는 생성한 id 다음부터", member.getId() > 100);
+    }
+
+    private Map<String, Long> checksums() {
+        Map<String, Long> checksums = new LinkedHashMap<>();
+        CHECKSUM_QUERIES.forEach((table, sql) -> checksums.put(table, jdbcTemplate.query(sql, rs -> {
+            CRC32 crc = new CRC32();
+            ResultSetMetaData meta = rs.getMetaData();
+            while (rs.next()) {
+                for (int i = 1; i <= meta.getColumnCount(); i++) {
+                    crc.update(String.valueOf(rs.getObject(i)).getBytes(StandardCharsets.UTF_8));
+                    crc.update('|');
+                }
+                crc.update('\n');
+            }
+            return crc.getValue();
+        })));
+        return checksums;
+    }
+
+    private void deleteAll() {
+        jdbcTemplate.execute("set referential_integrity false");    //category.parent_id 자기 참조
+        try {
+            CHECKSUM_QUERIES.keySet().forEach(table -> jdbcTemplate.update("delete from " + table));
+        } finally {
+            jdbcTemplate.execute("set referential_integrity true");
+        }
+    }
+}
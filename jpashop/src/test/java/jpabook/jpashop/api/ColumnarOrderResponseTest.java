@@ -0,0 +1,91 @@
+package jpabook.jpashop.api;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.junit.Assert.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+public class ColumnarOrderResponseTest {
+
+    @Autowired MockMvc mockMvc;
+    @Autowired ObjectMapper objectMapper;
+
+    @Test
+    public void 기본은_JSON() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/v5/orders"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andReturn();
+
+        assertTrue(objectMapper.readTree(result.getResponse().getContentAsByteArray()).isArray());
+    }
+
+    @Test
+    public void 컬럼_JSON() throws Exception {
+        JsonNode rows = objectMapper.readTree(mockMvc.perform(get("/api/v5/orders"))
+                .andReturn().getResponse().getContentAsByteArray());
+
+        MvcResult result = mockMvc.perform(get("/api/v5/orders").accept(ColumnarOrderResponse.MEDIA_TYPE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(ColumnarOrderResponse.MEDIA_TYPE))
+                .andReturn();
+        JsonNode columns = objectMapper.readTree(result.getResponse().getContentAsByteArray());
+
+        assertColumns(rows, columns);
+        assertTrue("같은 데이터를 더 작게 보낸다.",
+                result.getResponse().getContentAsByteArray().length < objectMapper.writeValueAsBytes(rows).length);
+    }
+
+    @Test
+    public void Smile() throws Exception {
+        JsonNode rows = objectMapper.readTree(mockMvc.perform(get("/api/v6/orders"))
+                .andReturn().getResponse().getContentAsByteArray());
+
+        MvcResult result = mockMvc.perform(get("/api/v6/orders").accept("application/x-jackson-smile"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-jackson-smile"))
+                .andReturn();
+
+        assertColumns(rows, new ObjectMapper(new SmileFactory()).readTree(result.getResponse().getContentAsByteArray()));
+    }
+
+    //행 형식과 같은 주문, 같은 상품을 담고 있는지 확인
+    private void assertColumns(JsonNode rows, JsonNode columns) {
+        int size = columns.get("size").asInt();
+        assertEquals(rows.size(), size);
+        assertEquals(size + 1, columns.get("itemOffset").size());
+
+        for (int i = 0; i < size; i++) {
+            JsonNode row = rows.get(i);
+            assertEquals(row.get("orderId").asLong(), columns.get("orderId").get(i).asLong());
+            assertEquals(row.get("name").asText(), columns.get("names").get(columns.get("name").get(i).asInt()).asText());
+            assertEquals(row.get("orderStatus").asText(), columns.get("statuses").get(columns.get("status").get(i).asInt()).asText());
+            assertEquals(row.get("address"), columns.get("addresses").get(columns.get("address").get(i).asInt()));
+
+            int from = columns.get("itemOffset").get(i).asInt();
+            int to = columns.get("itemOffset").get(i + 1).asInt();
+            assertEquals(row.get("orderItems").size(), to - from);
+            for (int j = from; j < to; j++) {
+                JsonNode item = row.get("orderItems").get(j - from);
+                assertEquals(item.get("itemName").asText(), columns.get("itemNames").get(columns.get("itemName").get(j).asInt()).asText());
+                assertEquals(item.get("count").asInt(), columns.get("count").get(j).asInt());
+            }
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package jpabook.jpashop.benchmark;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jpabook.jpashop.JpashopApplication;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Delivery;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.domain.item.Book;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+//OSIV on/off 커넥션 풀 대기 시간 비교 (부하 테스트)
+//  실행: ./gradlew test --tests '*OpenInViewLoadTest' -Dbenchmark=true -Dbenchmark.orders=1000 -Dbenchmark.clients=32
+//  작은 커넥션 풀(4개)에 동시 요청을 보내고 hikaricp.connections.acquire 타이머로 커넥션 대기 시간을 비교한다.
+//  OSIV on : 응답 JSON 을 다 쓸 때까지 커넥션을 잡고 있다.
+//  OSIV off: @FetchPlan 으로 리포지토리 트랜잭션 안에서 로딩하고, 직렬화 전에 커넥션을 반환한다.
+public class OpenInViewLoadTest {
+
+    private static final Logger log = LoggerFactory.getLogger(OpenInViewLoadTest.class);
+
+    static final int POOL_SIZE = 4;
+    static final int REQUESTS_PER_CLIENT = 20;
+    static final String URL = "/api/v2/orders";
+
+    @Before
+    public void setUp() {
+        Assume.assumeTrue("-Dbenchmark=true 일 때만 실행", Boolean.getBoolean("benchmark"));
+    }
+
+    @Test
+    public void 커넥션_대기_시간_비교() throws Exception {
+        int orders = Integer.getInteger("benchmark.orders", 1000);
+        int clients = Integer.getInteger("benchmark.clients", 32);
+
+        String openInView = run(true, orders, clients);
+        String fetchPlan = run(false, orders, clients);
+
+        log.info(String.format("%-24s %s", "OSIV on", openInView));
+        log.info(String.format("%-24s %s", "OSIV off + @FetchPlan", fetchPlan));
+    }
+
+    //커넥션 획득 수, 평균/최대 대기 시간
+    private String run(boolean openInView, int orders, int clients) throws Exception {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(JpashopApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:osiv-" + openInView + ";DB_CLOSE_DELAY=-1",
+                        "spring.datasource.hikari.maximum-pool-size=" + POOL_SIZE,
+                        "spring.jpa.open-in-view=" + openInView,
+                        "spring.jpa.properties.hibernate.show_sql=false",
+                        "logging.level.org.hibernate.SQL=info",
+                        "logging.level.org.hibernate.type=info",
+                        "decorator.datasource.p6spy.enable-logging=false")
+                .run();
+        try {
+            seed(context, orders);
+            String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+
+            HttpClient client = HttpClient.newHttpClient();
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + URL)).build();
+            client.send(request, HttpResponse.BodyHandlers.discarding());      //워밍업
+
+            MeterRegistry meterRegistry = context.getBean(MeterRegistry.class);
+            Timer acquire = meterRegistry.get("hikaricp.connections.acquire").timer();
+            long countBefore = acquire.count();
+            double totalBefore = acquire.totalTime(TimeUnit.MILLISECONDS);
+
+            ExecutorService executor = Executors.newFixedThreadPool(clients);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < clients; i++) {
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < REQUESTS_PER_CLIENT; j++) {
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        assertEquals(200, response.statusCode());
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            executor.shutdown();
+
+            long acquires = acquire.count() - countBefore;
+            double waitMillis = acquire.totalTime(TimeUnit.MILLISECONDS) - totalBefore;
+            return String.format("acquires=%6d  avg wait ms=%8.3f  max wait ms=%8.3f",
+                    acquires, waitMillis / Math.max(acquires, 1), acquire.max(TimeUnit.MILLISECONDS));
+        } finally {
+            context.close();
+        }
+    }
+
+    private void seed(ConfigurableApplicationContext context, int orders) {
+        EntityManager em = context.getBean(EntityManager.class);
+        context.getBean(TransactionTemplate.class).executeWithoutResult(status -> {
+            Book book = new Book();
+            book.setName("BENCH BOOK");
+            book.setPrice(10000);
+            book.setStockQuantity(Integer.MAX_VALUE);
+            em.persist(book);
+
+            for (int i = 0; i < orders; i++) {
+                Member member = new Member();
+                member.setName("member" + i);
+                member.setAddress(new Address("city" + i, "street", "00000"));
+                em.persist(member);
+
+                Delivery delivery = new Delivery();
+                delivery.setAddress(member.getAddress());
+                em.persist(Order.createOrder(member, delivery, OrderItem.createOrderItem(book, 10000, 1)));
+
+                if (i % 1000 == 0) {
+                    em.flush();
+                    em.clear();
+                    book = em.find(Book.class, book.getId());
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,134 @@
+package jpabook.jpashop.benchmark;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Delivery;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.repository.OrderRepository;
+import jpabook.jpashop.repository.OrderSearch;
+import jpabook.jpashop.repository.order.simplequery.OrderSimpleQueryDTO;
+import jpabook.jpashop.repository.order.simplequery.OrderSimpleQueryJdbcRepository;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+//OrderSimpleApiController 의 조회 전략별 row 당 비용 비교
+//  실행: ./gradlew test --tests '*SimpleOrderStrategyBenchmark' -Dbenchmark=true -Dbenchmark.orders=10000
+//  V2: 엔티티 조회 + 지연 로딩 (1+N+N)
+//  V3: 페치 조인
+//  V4: JPQL new 명령어로 DTO 조회
+//  V5: JdbcTemplate + RowMapper
+//  주의: V2 는 findAllByCriteria 의 페이지 크기 제한(OrderSearch.MAX_SIZE) 때문에 최대 1000 건만 조회된다. (row 당 비용으로 비교)
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:simple-order-benchmark;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.show_sql=false",
+        "logging.level.org.hibernate.SQL=info",
+        "logging.level.org.hibernate.type=info",
+        "decorator.datasource.p6spy.enable-logging=false"})
+public class SimpleOrderStrategyBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(SimpleOrderStrategyBenchmark.class);
+
+    static final int WARMUP = 3;
+    static final int ITERATIONS = 10;
+
+    @Autowired EntityManager em;
+    @Autowired TransactionTemplate transactionTemplate;
+    @Autowired OrderRepository orderRepository;
+    @Autowired OrderSimpleQueryJdbcRepository orderSimpleQueryJdbcRepository;
+
+    @Before
+    public void setUp() {
+        Assume.assumeTrue("-Dbenchmark=true 일 때만 실행", Boolean.getBoolean("benchmark"));
+        seed(Integer.getInteger("benchmark.orders", 10000));
+    }
+
+    @Test
+    public void 조회_전략별_비교() throws Exception {
+        measure("V2 엔티티 + 지연 로딩", () -> orderRepository.findAllByCriteria(firstPage()).stream()
+                .map(this::toDto)
+                .collect(Collectors.toList()).size());
+        measure("V3 페치 조인", () -> orderRepository.findAllWithMemberDelivery().stream()
+                .map(this::toDto)
+                .collect(Collectors.toList()).size());
+        measure("V4 JPQL DTO", () -> orderRepository.findOrderDTOs().size());
+        measure("V5 JdbcTemplate", () -> orderSimpleQueryJdbcRepository.findPage(null, Integer.MAX_VALUE).size());
+        measure("V5 JdbcTemplate stream", () -> {
+            AtomicInteger count = new AtomicInteger();
+            orderSimpleQueryJdbcRepository.stream(dto -> count.incrementAndGet());
+            return count.get();
+        });
+    }
+
+    private void measure(String name, Supplier<Integer> strategy) {
+        for (int i = 0; i < WARMUP; i++) {
+            runInTransaction(strategy);
+        }
+        long rows = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            rows += runInTransaction(strategy);
+        }
+        long elapsed = System.nanoTime() - start;
+        log.info(String.format("%-24s rows/op=%8d  ms/op=%10.2f  ns/row=%10.1f",
+                name, rows / ITERATIONS, elapsed / 1e6 / ITERATIONS, (double) elapsed / Math.max(rows, 1)));
+    }
+
+    private OrderSearch firstPage() {
+        OrderSearch orderSearch = new OrderSearch();
+        orderSearch.setSize(OrderSearch.MAX_SIZE);
+        return orderSearch;
+    }
+
+    //매번 새 영속성 컨텍스트에서 실행 (1차 캐시 효과 제거)
+    private int runInTransaction(Supplier<Integer> strategy) {
+        Integer size = transactionTemplate.execute(status -> strategy.get());
+        return size == null ? 0 : size;
+    }
+
+    private OrderSimpleQueryDTO toDto(Order o) {
+        return new OrderSimpleQueryDTO(o.getId(), o.getMember().getName(), o.getOrderDate(), o.getStatus(), o.getDelivery().getAddress());
+    }
+
+    private void seed(int orders) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Book book = new Book();
+            book.setName("BENCH BOOK");
+            book.setPrice(10000);
+            book.setStockQuantity(Integer.MAX_VALUE);
+            em.persist(book);
+
+            for (int i = 0; i < orders; i++) {
+                Member member = new Member();
+                member.setName("member" + i);
+                member.setAddress(new Address("city" + i, "street", "00000"));
+                em.persist(member);
+
+                Delivery delivery = new Delivery();
+                delivery.setAddress(member.getAddress());
+                em.persist(Order.createOrder(member, delivery, OrderItem.createOrderItem(book, 10000, 1)));
+
+                if (i % 1000 == 0) {
+                    em.flush();
+                    em.clear();
+                    book = em.find(Book.class, book.getId());
+                }
+            }
+        });
+    }
+}
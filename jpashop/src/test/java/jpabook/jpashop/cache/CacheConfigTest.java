@@ -0,0 +1,66 @@
+package jpabook.jpashop.cache;
+
+import jpabook.jpashop.service.query.ItemQueryService;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.Assert.*;
+
+//커밋/롤백을 확인해야 하므로 테스트 트랜잭션 없이 TransactionTemplate 으로 실행한다.
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class CacheConfigTest {
+
+    static final String KEY = "cache-config-test";
+
+    @Autowired CacheManager cacheManager;
+    @Autowired TransactionTemplate transactionTemplate;
+
+    @After
+    public void tearDown() {
+        cache().evict(KEY);
+    }
+
+    @Test
+    public void 커밋_후에_제거() throws Exception {
+        cache().put(KEY, "cached");
+
+        transactionTemplate.executeWithoutResult(status -> {
+            cache().evict(KEY);
+            assertNotNull("커밋 전에는 그대로", cache().get(KEY));
+        });
+
+        assertNull(cache().get(KEY));
+    }
+
+    @Test
+    public void 롤백되면_제거하지_않는다() throws Exception {
+        cache().put(KEY, "cached");
+
+        transactionTemplate.executeWithoutResult(status -> {
+            cache().evict(KEY);
+            status.setRollbackOnly();
+        });
+
+        assertEquals("cached", cache().get(KEY).get());
+    }
+
+    @Test
+    public void put_은_트랜잭션_안에서도_바로_반영() throws Exception {
+        transactionTemplate.executeWithoutResult(status -> {
+            cache().put(KEY, "cached");
+            assertEquals("cached", cache().get(KEY).get());
+        });
+    }
+
+    private Cache cache() {
+        return cacheManager.getCache(ItemQueryService.ITEMS_CACHE);
+    }
+}
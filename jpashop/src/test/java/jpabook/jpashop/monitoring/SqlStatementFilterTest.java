@@ -0,0 +1,110 @@
+package jpabook.jpashop.monitoring;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.exception.SqlBudgetExceededException;
+import jpabook.jpashop.repository.order.query.OrderQueryRepository;
+import jpabook.jpashop.service.OrderService;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+@Import(SqlStatementFilterTest.BudgetTestController.class)
+public class SqlStatementFilterTest {
+
+    @Autowired MockMvc mockMvc;
+    @Autowired SqlStatementListener sqlStatementListener;
+    @Autowired OrderQueryRepository orderQueryRepository;
+    @Autowired MeterRegistry meterRegistry;
+    @Autowired OrderService orderService;
+    @Autowired EntityManager em;
+
+    @Test
+    public void 예산_안에서_조회() throws Exception {
+        mockMvc.perform(get("/api/v5/orders"))
+                .andExpect(status().isOk());
+
+        assertNotNull(meterRegistry.find("jpashop.sql.request.statements").tag("uri", "/api/v5/orders").summary());
+    }
+
+    @Test(expected = SqlBudgetExceededException.class)
+    public void 예산_초과() throws Exception {
+        mockMvc.perform(get("/test/sql-budget"));
+
+        fail("SQL 예산 초과 예외가 발생해야 한다.");
+    }
+
+    @Test
+    @Transactional
+    public void N_플러스_1_감지() throws Exception {
+        //given: 주문 2건 이상
+        Member member = new Member();
+        member.setName("nplus1-" + System.nanoTime());
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        em.persist(member);
+        Book book = new Book();
+        book.setName("N+1 BOOK");
+        book.setPrice(10000);
+        book.setStockQuantity(10);
+        em.persist(book);
+        orderService.order(member.getId(), book.getId(), 1);
+        orderService.order(member.getId(), book.getId(), 1);
+        em.flush();
+        em.clear();
+
+        try (SqlStatistics statistics = sqlStatementListener.open()) {
+            List<?> result = orderQueryRepository.findOrderQueryDTOs();    //주문 수 만큼 orderItem 조회
+
+            //then
+            assertTrue(result.size() >= 2);
+            assertEquals("주문 1번 + 주문 수 만큼 orderItem 조회", 1 + result.size(), statistics.getStatements());
+            Map<String, Integer> candidates = statistics.getNPlusOneCandidates(2);
+            assertTrue("order_item 조회가 N+1 후보로 잡혀야 한다. candidates=" + candidates,
+                    candidates.entrySet().stream()
+                            .anyMatch(e -> e.getKey().contains("order_item") && e.getValue() == result.size()));
+        }
+    }
+
+    @Test
+    public void SQL_모양() throws Exception {
+        assertEquals("select * from orders where order_id in (?) and status=?",
+                SqlStatistics.shapeOf("select *   from orders\n where order_id in (?, ?, ?) and status='ORDER'"));
+        assertEquals("select * from item where item_id=?",
+                SqlStatistics.shapeOf("select * from item where item_id=15"));
+    }
+
+    @TestConfiguration
+    @RestController
+    static class BudgetTestController {
+
+        @Autowired OrderQueryRepository orderQueryRepository;
+
+        @SqlBudget(statements = 1)
+        @GetMapping("/test/sql-budget")
+        public int orders() {
+            return orderQueryRepository.findOrderQueryDTOs().size();    //1 + N
+        }
+    }
+}
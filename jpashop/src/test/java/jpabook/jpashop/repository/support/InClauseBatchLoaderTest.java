@@ -0,0 +1,64 @@
+package jpabook.jpashop.repository.support;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jpabook.jpashop.monitoring.SqlStatementListener;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.Assert.*;
+
+public class InClauseBatchLoaderTest {
+
+    InClauseBatchLoader loader = new InClauseBatchLoader(new SqlStatementListener(new SimpleMeterRegistry()), 16, 2);
+
+    @After
+    public void tearDown() {
+        loader.shutdown();
+    }
+
+    @Test
+    public void 청크_패딩() throws Exception {
+        List<List<Long>> chunks = loader.split(ids(37));
+
+        assertEquals(3, chunks.size());
+        assertEquals(16, chunks.get(0).size());
+        assertEquals(16, chunks.get(1).size());
+        assertEquals("마지막 청크는 2의 제곱 크기로 패딩된다.", 8, chunks.get(2).size());
+        assertEquals("패딩은 마지막 식별자를 반복한다.", Long.valueOf(36), chunks.get(2).get(7));
+    }
+
+    @Test
+    public void 중복_식별자_제거() throws Exception {
+        List<List<Long>> chunks = loader.split(Arrays.asList(1L, 1L, 2L, 2L));
+
+        assertEquals(1, chunks.size());
+        assertEquals(new HashSet<>(Arrays.asList(1L, 2L)), new HashSet<>(chunks.get(0)));
+    }
+
+    @Test
+    public void 청크별_결과_병합() throws Exception {
+        Set<Integer> sizes = new HashSet<>();
+        Map<Long, List<Long>> result = loader.loadGrouped(ids(100), chunk -> {
+            synchronized (sizes) {
+                sizes.add(chunk.size());
+            }
+            return chunk.stream().distinct().collect(Collectors.toList());
+        }, id -> id);
+
+        assertEquals(100, result.size());
+        assertTrue("SQL 모양은 정해진 청크 크기로만 생성된다.", Set.of(16, 8).containsAll(sizes));
+    }
+
+    private List<Long> ids(int count) {
+        return LongStream.range(0, count).boxed().collect(Collectors.toCollection(ArrayList::new));
+    }
+}
@@ -0,0 +1,79 @@
+package jpabook.jpashop.repository.support;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+
+public class MemberNameIndexTest {
+
+    MemberNameIndex index = new MemberNameIndex(mock(JdbcTemplate.class));
+
+    @Before
+    public void setUp() {
+        index.rebuild();    //빈 member 테이블로 색인 완료
+    }
+
+    @Test
+    public void 색인_전에는_사용하지_않는다() throws Exception {
+        MemberNameIndex notReady = new MemberNameIndex(mock(JdbcTemplate.class));
+        notReady.index(1L, "김철수");
+
+        assertFalse("색인을 다 만들기 전에는 like 로 검색", notReady.findMemberIds("철수", 10).isPresent());
+
+        notReady.rebuild();
+        assertTrue(notReady.findMemberIds("철수", 10).isPresent());
+    }
+
+    @Test
+    public void 부분_일치_검색() throws Exception {
+        index.index(1L, "김철수");
+        index.index(2L, "박철민");
+        index.index(3L, "이영희");
+
+        assertEquals(Collections.singletonList(1L), index.findMemberIds("철수", 10).get());
+        assertEquals(Collections.singletonList(2L), index.findMemberIds("박철", 10).get());
+        assertTrue("색인에 없는 bigram", index.findMemberIds("없음", 10).get().isEmpty());
+    }
+
+    @Test
+    public void bigram_순서가_다르면_제외() throws Exception {
+        index.index(1L, "abcab");
+
+        assertEquals(Collections.singletonList(1L), index.findMemberIds("bca", 10).get());
+        assertTrue("bigram(ab, ba) 은 모두 있지만 aba 는 포함하지 않는다.", index.findMemberIds("aba", 10).get().isEmpty());
+    }
+
+    @Test
+    public void 이름_변경과_삭제() throws Exception {
+        index.index(1L, "userA");
+        assertEquals("이전 이름 반환", "userA", index.index(1L, "memberB"));
+
+        assertTrue(index.findMemberIds("userA", 10).get().isEmpty());
+        assertEquals(Collections.singletonList(1L), index.findMemberIds("memberB", 10).get());
+
+        assertEquals("memberB", index.remove(1L));
+        assertTrue(index.findMemberIds("memberB", 10).get().isEmpty());
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    public void 색인으로_좁힐_수_없는_경우() throws Exception {
+        for (long id = 100; id > 0; id--) {      //역순으로 추가해도 정렬 유지
+            index.index(id, "member" + id);
+        }
+
+        assertFalse("검색어가 2글자 미만", index.findMemberIds("m", 10).isPresent());
+        assertFalse("결과가 maxResults 초과", index.findMemberIds("member", 10).isPresent());
+
+        Optional<List<Long>> result = index.findMemberIds("member1", 100);
+        assertEquals(12, result.get().size());     //1, 10~19, 100
+        assertEquals(Long.valueOf(1L), result.get().get(0));
+    }
+}
@@ -0,0 +1,128 @@
+package jpabook.jpashop.repository.support;
+
+import jpabook.jpashop.monitoring.SqlStatementListener;
+import jpabook.jpashop.monitoring.SqlStatistics;
+import jpabook.jpashop.repository.order.query.OrderDetailQueryDTO;
+import jpabook.jpashop.repository.order.query.OrderItemQueryDTO;
+import jpabook.jpashop.repository.order.query.OrderQueryRepository;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+//다른 스레드의 별도 트랜잭션에서 조회하므로 InitDb 가 커밋한 데이터로 확인한다.
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "jpashop.parallel-query.timeout-ms=500")
+public class ParallelQueryExecutorTest {
+
+    @Autowired ParallelQueryExecutor parallelQueryExecutor;
+    @Autowired OrderQueryRepository orderQueryRepository;
+    @Autowired SqlStatementListener sqlStatementListener;
+    @Autowired JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void 동시_실행() throws Exception {
+        //서로를 기다리는 두 쿼리는 동시에 실행되어야만 끝난다.
+        CountDownLatch latch = new CountDownLatch(2);
+
+        ParallelQueryExecutor.Fork fork = parallelQueryExecutor.fork();
+        CompletableFuture<String> a = fork.submit(() -> meet(latch, "a"));
+        CompletableFuture<String> b = fork.submit(() -> meet(latch, "b"));
+        fork.join();
+
+        assertEquals("a", a.join());
+        assertEquals("b", b.join());
+    }
+
+    @Test
+    public void 타임아웃_나머지_취소() throws Exception {
+        CountDownLatch interrupted = new CountDownLatch(1);
+
+        ParallelQueryExecutor.Fork fork = parallelQueryExecutor.fork();
+        fork.submit(() -> "fast");
+        fork.submit(() -> {
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return "slow";
+        });
+
+        try {
+            fork.join();
+            fail("timeout-ms 를 넘으면 예외가 발생해야 한다.");
+        } catch (QueryTimeoutException e) {
+        }
+        assertTrue("느린 쿼리는 취소(interrupt)된다.", interrupted.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void 실패하면_timeout_을_기다리지_않는다() throws Exception {
+        ParallelQueryExecutor.Fork fork = parallelQueryExecutor.fork();
+        fork.submit(() -> {
+            throw new IllegalStateException("query failed");
+        });
+        fork.submit(() -> {
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+            }
+            return "slow";
+        });
+
+        fork.join();
+    }
+
+    @Test
+    public void 다른_스레드의_SQL_도_호출한_범위에_기록() throws Exception {
+        try (SqlStatistics statistics = sqlStatementListener.open()) {
+            ParallelQueryExecutor.Fork fork = parallelQueryExecutor.fork();
+            CompletableFuture<String> a = fork.submit(() -> Thread.currentThread().getName()
+                    + jdbcTemplate.queryForObject("select count(*) from orders", Long.class));
+            CompletableFuture<String> b = fork.submit(() -> Thread.currentThread().getName()
+                    + jdbcTemplate.queryForObject("select count(*) from member", Long.class));
+            fork.join();
+
+            assertTrue(a.join().startsWith("parallel-query-") || b.join().startsWith("parallel-query-"));
+            assertEquals(2, statistics.getStatements());
+        }
+    }
+
+    @Test
+    public void 주문_상세_조립() throws Exception {
+        List<OrderDetailQueryDTO> orders = orderQueryRepository.findOrderDetails(null, 1000);
+
+        OrderDetailQueryDTO order = orders.stream()
+                .filter(o -> o.getName().equals("userA"))
+                .findFirst()
+                .orElseThrow();
+        assertEquals(List.of("SPRING1 BOOK", "SPRING2 BOOK"), order.getOrderItems().stream()
+                .map(OrderItemQueryDTO::getItemName)
+                .sorted()
+                .collect(Collectors.toList()));
+        assertTrue("회원 통계는 매출 롤업에서 id 로 합친다.", order.getMemberOrderCount() >= 1);
+        assertTrue(order.getCategories().isEmpty());
+    }
+
+    private String meet(CountDownLatch latch, String value) {
+        latch.countDown();
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+        return value;
+    }
+}
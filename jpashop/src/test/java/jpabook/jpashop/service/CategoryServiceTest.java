@@ -0,0 +1,105 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.Category;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.repository.CategoryRepository;
+import jpabook.jpashop.service.query.CategoryQueryService;
+import jpabook.jpashop.service.query.ItemQueryDto;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@Transactional
+public class CategoryServiceTest {
+
+    @Autowired EntityManager em;
+    @Autowired CategoryService categoryService;
+    @Autowired CategoryQueryService categoryQueryService;
+    @Autowired CategoryRepository categoryRepository;
+
+    @Test
+    public void 하위_카테고리_조회() throws Exception {
+        //given: book -> it -> java, book -> novel
+        Long book = categoryService.create("book", null);
+        Long it = categoryService.create("it", book);
+        Long java = categoryService.create("java", it);
+        Long novel = categoryService.create("novel", book);
+        em.flush();
+        em.clear();
+
+        //then
+        assertEquals(new HashSet<>(List.of(book, it, java, novel)), new HashSet<>(categoryRepository.findDescendantIds(book)));
+        assertEquals(new HashSet<>(List.of(it, java)), new HashSet<>(categoryRepository.findDescendantIds(it)));
+        assertEquals(List.of(java), categoryRepository.findDescendantIds(java));
+
+        Category javaCategory = categoryRepository.findOne(java);
+        assertEquals("상위 카테고리 closure", 2, javaCategory.getAncestors().size());
+        assertEquals("book 에서 java 까지 거리", 2, javaCategory.getAncestors().stream()
+                .filter(c -> c.getAncestor().getId().equals(book))
+                .findFirst().get().getDepth());
+    }
+
+    @Test
+    public void 하위_트리_상품_페이징() throws Exception {
+        //given
+        Long book = categoryService.create("book", null);
+        Long it = categoryService.create("it", book);
+        Long java = categoryService.create("java", it);
+        Long jpa = createBook("JPA");
+        Long spring = createBook("SPRING");
+        Long other = createBook("OTHER");
+        categoryService.addItem(java, jpa);
+        categoryService.addItem(it, spring);
+        categoryService.addItem(java, spring);      //여러 카테고리에 속한 상품
+        categoryService.addItem(book, other);
+        em.flush();
+        em.clear();
+
+        //when
+        List<Long> itItems = ids(categoryQueryService.findSubtreeItems(it, 0, 10));
+        List<Long> firstPage = ids(categoryQueryService.findSubtreeItems(book, 0, 2));
+        List<Long> secondPage = ids(categoryQueryService.findSubtreeItems(book, 2, 2));
+
+        //then
+        assertEquals("상품은 한 번만 조회된다.", List.of(jpa, spring), itItems);
+        assertEquals(List.of(jpa, spring), firstPage);
+        assertEquals(List.of(other), secondPage);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void 상위_카테고리_변경_불가() throws Exception {
+        Category parent = new Category();
+        Category other = new Category();
+        Category child = new Category();
+        parent.addChildCategory(child);
+
+        other.addChildCategory(child);
+
+        fail("이미 상위 카테고리가 있으면 예외가 발생해야 한다.");
+    }
+
+    private Long createBook(String name) {
+        Book book = new Book();
+        book.setName(name);
+        book.setPrice(10000);
+        book.setStockQuantity(10);
+        em.persist(book);
+        return book.getId();
+    }
+
+    private List<Long> ids(List<ItemQueryDto> items) {
+        return items.stream().map(ItemQueryDto::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,101 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.item.Album;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.service.query.ItemQueryService;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+//배치마다 커밋되는지 확인하려면 테스트 트랜잭션(롤백) 밖에서 실행해야 하므로 메소드별로 @Transactional 을 건다.
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "jpashop.item-import.batch-size=2")
+public class ItemImportServiceTest {
+
+    @Autowired ItemImportService itemImportService;
+    @Autowired EntityManager em;
+    @Autowired JdbcTemplate jdbcTemplate;
+    @Autowired CacheManager cacheManager;
+
+    @After
+    public void tearDown() {
+        jdbcTemplate.update("delete from item where name like 'import-batch-%'");
+    }
+
+    @Test
+    @Transactional
+    public void 상품_CSV_일괄등록() throws Exception {
+        //given
+        String csv = "type,name,price,stockQuantity,author,isbn,artist\n" +
+                "BOOK,\"JPA, 기본편\",10000,10,김영한,1234,\n" +
+                "\n" +
+                "ALBUM,앨범,20000,5,,,아이유\n";
+
+        //when
+        ItemImportResult result = itemImportService.importItems(new ItemCsvReader(new StringReader(csv)));
+
+        //then
+        assertEquals(2, result.getRows());
+        List<Item> items = em.createQuery("select i from Item i where i.name in ('JPA, 기본편', '앨범') order by i.price", Item.class)
+                .getResultList();
+        assertEquals(2, items.size());
+        assertTrue(items.get(0) instanceof Book);
+        assertEquals("김영한", ((Book) items.get(0)).getAuthor());
+        assertTrue(items.get(1) instanceof Album);
+        assertEquals(5, items.get(1).getStockQuantity());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    @Transactional
+    public void 상품_CSV_잘못된_가격() throws Exception {
+        //given
+        String csv = "type,name,price,stockQuantity\n" +
+                "BOOK,책,abc,10\n";
+
+        //when
+        itemImportService.importItems(new ItemCsvReader(new StringReader(csv)));
+
+        //then
+        fail("예외가 발생해야 한다.");
+    }
+
+    @Test
+    public void 실패한_배치_이전은_커밋된다() throws Exception {
+        //given: batch-size=2, 7번째 줄(5번째 상품)의 가격이 잘못됨
+        String csv = "type,name,price,stockQuantity\n" +
+                "BOOK,import-batch-1,1000,1\n" +
+                "BOOK,import-batch-2,1000,1\n" +
+                "\n" +
+                "BOOK,import-batch-3,1000,1\n" +
+                "BOOK,import-batch-4,1000,1\n" +
+                "BOOK,import-batch-5,-1,1\n";
+        cacheManager.getCache(ItemQueryService.ITEMS_CACHE).put("all", List.of());
+
+        //when
+        try {
+            itemImportService.importItems(new ItemCsvReader(new StringReader(csv)));
+            fail("예외가 발생해야 한다.");
+        } catch (IllegalArgumentException e) {
+            assertTrue("오류 위치는 원본 CSV 의 줄 번호 (빈 줄 포함). message=" + e.getMessage(), e.getMessage().endsWith("line=7"));
+        }
+
+        //then: 앞의 배치 2개(4건)는 이미 커밋됨
+        List<String> names = jdbcTemplate.queryForList(
+                "select name from item where name like 'import-batch-%' order by name", String.class);
+        assertEquals(List.of("import-batch-1", "import-batch-2", "import-batch-3", "import-batch-4"), names);
+        assertNull("커밋된 배치가 있으므로 상품 목록 캐시는 제거", cacheManager.getCache(ItemQueryService.ITEMS_CACHE).get("all"));
+    }
+}
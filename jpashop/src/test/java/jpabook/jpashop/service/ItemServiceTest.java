@@ -0,0 +1,119 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.monitoring.SqlStatementListener;
+import jpabook.jpashop.monitoring.SqlStatistics;
+import jpabook.jpashop.repository.ItemChangeSet;
+import jpabook.jpashop.service.query.ItemQueryDto;
+import jpabook.jpashop.service.query.ItemQueryService;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+
+import static org.junit.Assert.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@Transactional
+public class ItemServiceTest {
+
+    @Autowired ItemService itemService;
+    @Autowired ItemQueryService itemQueryService;
+    @Autowired SqlStatementListener sqlStatementListener;
+    @Autowired EntityManager em;
+
+    @Test
+    public void 상품_부분수정() throws Exception {
+        //given
+        Book book = createBook();
+
+        //when
+        ItemChangeSet changes = new ItemChangeSet();
+        changes.setPrice(20000);
+        try (SqlStatistics statistics = sqlStatementListener.open()) {
+            itemService.updateItem(book.getId(), book.getVersion(), changes);
+
+            //then
+            assertEquals("조회 없이 update 1번", 1, statistics.getStatements());
+        }
+        em.clear();
+        Book findBook = em.find(Book.class, book.getId());
+        assertEquals(20000, findBook.getPrice());
+        assertEquals("바뀌지 않은 필드는 그대로", "JPA", findBook.getName());
+        assertEquals(10, findBook.getStockQuantity());
+        assertEquals(Long.valueOf(book.getVersion() + 1), findBook.getVersion());
+    }
+
+    @Test
+    public void 상품_부분수정_저자_지우기() throws Exception {
+        //given
+        Book book = createBook();
+
+        //when
+        ItemChangeSet changes = new ItemChangeSet();
+        changes.setAuthor(null);
+        itemService.updateItem(book.getId(), book.getVersion(), changes);
+
+        //then
+        em.clear();
+        Book findBook = em.find(Book.class, book.getId());
+        assertNull("null 로 지울 수 있다.", findBook.getAuthor());
+        assertEquals("JPA", findBook.getName());
+    }
+
+    @Test(expected = OptimisticLockingFailureException.class)
+    public void 상품_부분수정_버전충돌() throws Exception {
+        //given
+        Book book = createBook();
+        ItemChangeSet changes = new ItemChangeSet();
+        changes.setName("JPA 활용");
+        itemService.updateItem(book.getId(), book.getVersion(), changes);
+
+        //when
+        changes.setName("JPA 활용2");
+        itemService.updateItem(book.getId(), book.getVersion(), changes);  //이전 버전으로 수정
+
+        //then
+        fail("낙관적 락 예외가 발생해야 한다.");
+    }
+
+    @Test
+    public void 재고변경_후_수정화면은_최신버전() throws Exception {
+        //given
+        Book book = createBook();
+        ItemQueryDto cached = itemQueryService.findOne(book.getId());
+
+        //when: 재고 예약을 끈 주문 경로처럼 변경 감지로 재고를 바꾼다. (version 증가)
+        em.find(Book.class, book.getId()).removeStock(1);
+        em.flush();
+        em.clear();
+
+        //then
+        assertEquals("캐시는 이전 version 을 들고 있다.", book.getVersion(), itemQueryService.findOne(book.getId()).getVersion());
+        ItemQueryDto fresh = itemQueryService.findOneForEdit(book.getId());
+        assertEquals(Long.valueOf(cached.getVersion() + 1), fresh.getVersion());
+        assertEquals(9, fresh.getStockQuantity());
+
+        ItemChangeSet changes = new ItemChangeSet();
+        changes.setPrice(20000);
+        itemService.updateItem(book.getId(), fresh.getVersion(), changes);     //수정 화면의 version 으로 수정 성공
+    }
+
+    private Book createBook() {
+        Book book = new Book();
+        book.setName("JPA");
+        book.setPrice(10000);
+        book.setStockQuantity(10);
+        book.setAuthor("김영한");
+        em.persist(book);
+        em.flush();
+        em.clear();
+        return book;
+    }
+}
@@ -1,14 +1,20 @@
 package jpabook.jpashop.service;
 
 import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.exception.DuplicateMemberException;
+import jpabook.jpashop.repository.MemberNameDTO;
 import jpabook.jpashop.repository.MemberRepository;
+import jpabook.jpashop.repository.support.MemberNameFilter;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
+
 import static org.junit.Assert.*;
 
 @RunWith(SpringRunner.class)
@@ -18,6 +24,8 @@ public class MemberServiceTest {
 
     @Autowired MemberRepository memberRepository;
     @Autowired MemberService memberService;
+    @Autowired MemberNameFilter memberNameFilter;
+    @Autowired JdbcTemplate jdbcTemplate;
 
     @Test
     public void 회원가입() throws Exception {
@@ -41,4 +49,41 @@ public class MemberServiceTest {
 
         fail("예외 발생");
     }
-}
\ No newline at end of file
+
+    @Test(expected = DuplicateMemberException.class)
+    public void 중복회원검증_DB_제약() throws Exception {
+        //Bloom filter 가 모르는 이름 (다른 서버, JDBC 로 저장된 회원)
+        jdbcTemplate.update("insert into member (member_id, name) values (?, ?)", 9_000_000L, "Lee");
+        assertFalse(memberNameFilter.mightContain("Lee"));
+
+        Member member = new Member();
+        member.setName("Lee");
+        memberService.join(member);
+
+        fail("unique 제약으로 예외 발생");
+    }
+
+    @Test
+    public void 회원이름_페이징() throws Exception {
+        //given
+        Long first = null;
+        for (int i = 0; i < 3; i++) {
+            Member member = new Member();
+            member.setName("page" + i);
+            Long id = memberService.join(member);
+            if (first == null) {
+                first = id;
+            }
+        }
+
+        //when
+        List<MemberNameDTO> page1 = memberService.findMemberNames(first - 1, 2);
+        List<MemberNameDTO> page2 = memberService.findMemberNames(page1.get(1).getMemberId(), 2);
+
+        //then
+        assertEquals("page0", page1.get(0).getName());
+        assertEquals("page1", page1.get(1).getName());
+        assertEquals("마지막 페이지는 나머지", 1, page2.size());
+        assertEquals("page2", page2.get(0).getName());
+    }
+}
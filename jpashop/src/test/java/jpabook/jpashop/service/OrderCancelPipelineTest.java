@@ -0,0 +1,85 @@
+package jpabook.jpashop.service;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+public class OrderCancelPipelineTest {
+
+    OrderService orderService = mock(OrderService.class);
+    OrderCancelPipeline pipeline = new OrderCancelPipeline(orderService);
+    CountDownLatch release = new CountDownLatch(1);
+
+    @Before
+    public void setUp() {
+        ReflectionTestUtils.setField(pipeline, "queueCapacity", 10);
+        ReflectionTestUtils.setField(pipeline, "batchSize", 10);
+        ReflectionTestUtils.setField(pipeline, "responseTimeoutMillis", 200L);
+        pipeline.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        release.countDown();
+        pipeline.stop();
+    }
+
+    @Test
+    public void Error_가_나도_워커는_계속_처리() throws Exception {
+        when(orderService.cancelOrders(anyCollection()))
+                .thenThrow(new AssertionError("boom"))
+                .thenReturn(Map.of(2L, CancelOutcome.CANCELED));
+
+        assertEquals(CancelOutcome.FAILED, pipeline.submit(1L).get(1, TimeUnit.SECONDS));
+        assertEquals(CancelOutcome.CANCELED, pipeline.submit(2L).get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void 배치가_실패하면_주문별로_다시_처리() throws Exception {
+        //주문 1 이 포함된 트랜잭션은 항상 실패한다.
+        when(orderService.cancelOrders(anyCollection())).thenAnswer(invocation -> {
+            Collection<Long> orderIds = invocation.getArgument(0);
+            if (orderIds.contains(1L)) {
+                throw new IllegalStateException("boom");
+            }
+            return orderIds.stream().collect(Collectors.toMap(id -> id, id -> CancelOutcome.CANCELED));
+        });
+
+        CompletableFuture<CancelOutcome> bad = pipeline.submit(1L);
+        CompletableFuture<CancelOutcome> first = pipeline.submit(2L);
+        CompletableFuture<CancelOutcome> second = pipeline.submit(3L);
+
+        assertEquals(CancelOutcome.FAILED, bad.get(1, TimeUnit.SECONDS));
+        assertEquals(CancelOutcome.CANCELED, first.get(1, TimeUnit.SECONDS));
+        assertEquals(CancelOutcome.CANCELED, second.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void 응답_대기_시간_초과() throws Exception {
+        when(orderService.cancelOrders(anyCollection())).thenAnswer(invocation -> {
+            release.await();
+            return Map.of();
+        });
+
+        assertEquals(CancelOutcome.TIMEOUT, pipeline.submit(1L).get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void 종료_후_요청은_거절() throws Exception {
+        pipeline.stop();
+
+        assertEquals(CancelOutcome.REJECTED, pipeline.submit(1L).get(1, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,106 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.repository.sales.ItemSalesDTO;
+import jpabook.jpashop.repository.sales.MemberSalesDTO;
+import jpabook.jpashop.service.query.PageLimit;
+import jpabook.jpashop.service.query.SalesQueryService;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+//롤업은 커밋 직전에 반영되므로 @Transactional(롤백) 없이 실제로 커밋하면서 확인한다.
+//  다른 테스트의 매출/주문 집계에 섞이지 않도록 @After 에서 만든 데이터를 모두 지운다.
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class OrderSalesRollupTest {
+
+    @Autowired OrderService orderService;
+    @Autowired SalesQueryService salesQueryService;
+    @Autowired TransactionTemplate transactionTemplate;
+    @Autowired EntityManager em;
+    @Autowired JdbcTemplate jdbcTemplate;
+
+    Long memberId;
+    Long itemId;
+
+    @After
+    public void tearDown() {
+        if (memberId == null) {
+            return;
+        }
+        List<Long> deliveryIds = jdbcTemplate.queryForList(
+                "select delivery_id from orders where member_id = ?", Long.class, memberId);
+        jdbcTemplate.update("delete from order_item where order_id in (select order_id from orders where member_id = ?)", memberId);
+        jdbcTemplate.update("delete from orders where member_id = ?", memberId);
+        deliveryIds.forEach(id -> jdbcTemplate.update("delete from delivery where delivery_id = ?", id));
+        jdbcTemplate.update("delete from daily_item_sales where item_id = ?", itemId);
+        jdbcTemplate.update("delete from daily_member_sales where member_id = ?", memberId);
+        jdbcTemplate.update("delete from item where item_id = ?", itemId);
+        jdbcTemplate.update("delete from member where member_id = ?", memberId);
+    }
+
+    @Test
+    public void 주문_취소_매출_롤업() throws Exception {
+        //given
+        Long[] ids = transactionTemplate.execute(status -> {
+            Member member = new Member();
+            member.setName("rollup-" + System.nanoTime());
+            member.setAddress(new Address("서울", "강가", "123-123"));
+            em.persist(member);
+            Book book = new Book();
+            book.setName("ROLLUP BOOK");
+            book.setPrice(10000);
+            book.setStockQuantity(100);
+            em.persist(book);
+            return new Long[]{member.getId(), book.getId()};
+        });
+        memberId = ids[0];
+        itemId = ids[1];
+
+        //when
+        orderService.order(memberId, itemId, 2);
+        Long canceled = orderService.order(memberId, itemId, 3);
+        orderService.cancelOrder(canceled);
+        orderService.cancelOrder(canceled);     //이미 취소된 주문은 다시 빼지 않는다.
+
+        //then: 조회 기간은 저장된 주문의 주문일로 잡는다. (자정을 넘겨 실행돼도 같은 결과)
+        LocalDate from = orderDate("min");
+        LocalDate to = orderDate("max");
+        ItemSalesDTO itemSales = findItemSales(salesQueryService.findItemSales(from, to, PageLimit.MAX), itemId);
+        assertEquals("취소된 주문은 빠진다.", 1, itemSales.getOrderCount());
+        assertEquals(2, itemSales.getQuantity());
+        assertEquals(20000, itemSales.getRevenue());
+
+        MemberSalesDTO memberSales = salesQueryService.findMemberSales(from, to, PageLimit.MAX).stream()
+                .filter(s -> s.getMemberId().equals(memberId))
+                .findFirst().orElseThrow();
+        assertEquals(1, memberSales.getOrderCount());
+        assertEquals(20000, memberSales.getRevenue());
+    }
+
+    private LocalDate orderDate(String aggregate) {
+        return jdbcTemplate.queryForObject("select " + aggregate + "(order_date) from orders where member_id = ?",
+                Timestamp.class, memberId).toLocalDateTime().toLocalDate();
+    }
+
+    private ItemSalesDTO findItemSales(List<ItemSalesDTO> sales, Long itemId) {
+        return sales.stream()
+                .filter(s -> s.getItemId().equals(itemId))
+                .findFirst().orElseThrow();
+    }
+}
@@ -1,12 +1,14 @@
 package jpabook.jpashop.service;
 
 import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.DeliveryStatus;
 import jpabook.jpashop.domain.Member;
 import jpabook.jpashop.domain.Order;
 import jpabook.jpashop.domain.OrderStatus;
 import jpabook.jpashop.domain.item.Book;
 import jpabook.jpashop.exception.NotEnoughStockException;
 import jpabook.jpashop.repository.OrderRepository;
+import jpabook.jpashop.repository.OrderSearch;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -15,6 +17,8 @@ import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.Map;
 
 import static org.junit.Assert.*;
 
@@ -77,6 +81,100 @@ public class OrderServiceTest {
 
     }
 
+    @Test
+    public void 일괄주문() throws Exception{
+        Member memberA = createMember("Yang");
+        Member memberB = createMember("Kim");
+        Book bookA = createBook("ABC", 10000, 10);
+        Book bookB = createBook("DEF", 20000, 10);
+
+        List<OrderCommand> commands = List.of(
+                new OrderCommand(memberA.getId(), List.of(
+                        new OrderCommand.OrderLine(bookA.getId(), 2),
+                        new OrderCommand.OrderLine(bookB.getId(), 1))),
+                new OrderCommand(memberB.getId(), List.of(
+                        new OrderCommand.OrderLine(bookA.getId(), 3))));
+
+        List<Long> orderIds = orderService.placeOrders(commands);
+
+        assertEquals("명령 수만큼 주문이 생성되어야 한다.", 2, orderIds.size());
+        Order orderA = orderRepository.findOne(orderIds.get(0));
+        assertEquals("한 주문에 여러 상품을 담을 수 있다.", 2, orderA.getOrderItems().size());
+        assertEquals(10000 * 2 + 20000, orderA.getTotalPrice());
+        assertEquals("주문 수량만큼 재고가 줄어야 한다.", 5, bookA.getStockQuantity());
+        assertEquals(9, bookB.getStockQuantity());
+    }
+
+    @Test
+    public void 일괄주문취소() throws Exception{
+        Member member = createMember("Yang");
+        Book book = createBook("ABC", 10000, 10);
+
+        Long orderA = orderService.order(member.getId(), book.getId(), 2);
+        Long orderB = orderService.order(member.getId(), book.getId(), 3);
+        Long shipped = orderService.order(member.getId(), book.getId(), 1);
+        orderRepository.findOne(shipped).getDelivery().setStatus(DeliveryStatus.COMP);
+
+        Map<Long, CancelOutcome> outcomes = orderService.cancelOrders(List.of(orderA, orderB, shipped, -1L));
+        em.clear();
+
+        assertEquals(CancelOutcome.CANCELED, outcomes.get(orderA));
+        assertEquals(CancelOutcome.CANCELED, outcomes.get(orderB));
+        assertEquals("배송완료된 주문은 취소할 수 없다.", CancelOutcome.DELIVERY_COMPLETED, outcomes.get(shipped));
+        assertEquals(CancelOutcome.NOT_FOUND, outcomes.get(-1L));
+        assertEquals(OrderStatus.CANCEL, orderRepository.findOne(orderA).getStatus());
+        assertEquals(OrderStatus.ORDER, orderRepository.findOne(shipped).getStatus());
+        assertEquals("취소된 주문 수량만큼 재고가 복구되어야 한다.", 9, em.find(Book.class, book.getId()).getStockQuantity());
+    }
+
+    @Test
+    public void 중복취소는_재고를_한번만_복구() throws Exception{
+        Member member = createMember("Yang");
+        Book book = createBook("ABC", 10000, 10);
+        Long orderId = orderService.order(member.getId(), book.getId(), 2);
+
+        orderService.cancelOrder(orderId);
+        orderService.cancelOrder(orderId);
+        Map<Long, CancelOutcome> outcomes = orderService.cancelOrders(List.of(orderId));
+        em.clear();
+
+        assertEquals(CancelOutcome.ALREADY_CANCELED, outcomes.get(orderId));
+        assertEquals("이미 취소된 주문은 재고를 다시 복구하지 않는다.", 10, em.find(Book.class, book.getId()).getStockQuantity());
+    }
+
+    @Test
+    public void 주문검색_페이징() throws Exception {
+        Member member = createMember("Kim_search");
+        Book book = createBook("ABC", 10000, 10);
+        for (int i = 0; i < 3; i++) {
+            orderService.order(member.getId(), book.getId(), 1);
+        }
+
+        OrderSearch orderSearch = new OrderSearch();
+        orderSearch.setMemberName("Kim_");
+        orderSearch.setOrderStatus(OrderStatus.ORDER);
+        orderSearch.setSize(2);
+        assertEquals("첫 페이지는 페이지 크기만큼", 2, orderService.findOrders(orderSearch).size());
+
+        orderSearch.setPage(1);
+        assertEquals("마지막 페이지는 나머지", 1, orderService.findOrders(orderSearch).size());
+
+        orderSearch.setPage(0);
+        orderSearch.setMemberName("_sea");
+        assertEquals("이름은 부분 일치로 검색 (회원 이름 색인)", 2, orderService.findOrders(orderSearch).size());
+
+        orderSearch.setMemberName("K");
+        assertEquals("짧은 검색어는 like 로 검색", 2, orderService.findOrders(orderSearch).size());
+
+        orderSearch.setMemberName("Kim%");
+        assertEquals("like 와일드카드는 문자 그대로 검색", 0, orderService.findOrders(orderSearch).size());
+
+        OrderSearch unpaged = OrderSearch.unpaged();
+        unpaged.setMemberName("Kim_search");
+        unpaged.setSize(1);
+        assertEquals("unpaged 는 페이지 크기를 적용하지 않는다. (v1, v2 주문 API)", 3, orderService.findOrders(unpaged).size());
+    }
+
     private Book createBook(String name, int price, int stockQuantity) {
         Book book= new Book();
         book.setName(name);
@@ -0,0 +1,77 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.exception.NotEnoughStockException;
+import jpabook.jpashop.repository.ItemStockRepository;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import static org.junit.Assert.*;
+
+//실제 ItemStockRepository(update ... where stock >= ?)로 DB 가 차감을 거절하는 경우를 확인한다.
+//  JDBC 로 바로 커밋하므로 트랜잭션 롤백 대신 @After 에서 상품을 지운다.
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class StockReservationEngineFlushTest {
+
+    @Autowired ItemService itemService;
+    @Autowired ItemStockRepository itemStockRepository;
+    @Autowired JdbcTemplate jdbcTemplate;
+
+    StockReservationEngine engine;
+    Long itemId;
+
+    @Before
+    public void setUp() {
+        engine = new StockReservationEngine(itemStockRepository);   //스케줄러가 flush 하지 않는 별도 엔진
+
+        Book book = new Book();
+        book.setName("JPA");
+        book.setPrice(10000);
+        book.setStockQuantity(5);
+        itemService.saveItem(book);
+        itemId = book.getId();
+    }
+
+    @After
+    public void tearDown() {
+        jdbcTemplate.update("delete from item where item_id = ?", itemId);
+    }
+
+    @Test
+    public void 거절된_차감량은_버리지_않고_다시_반영() throws Exception {
+        //given
+        engine.reserve(itemId, 4);
+        setStock(2);                    //예약 후 외부에서 재고를 줄임
+
+        //when
+        engine.flush();
+
+        //then
+        assertEquals("DB 는 그대로", 2, itemStockRepository.findStockQuantity(itemId));
+        assertEquals("차감량은 다음 flush 를 기다린다.", 4, engine.getPending(itemId));
+        assertTrue(engine.getRejected().contains(itemId));
+        try {
+            engine.reserve(itemId, 1);   //DB 재고 2 - 미반영 4
+            fail("재고 수량 부족 예외가 발생해야 한다.");
+        } catch (NotEnoughStockException e) {
+        }
+
+        //재고를 다시 채우면 반영된다.
+        setStock(10);
+        engine.flush();
+        assertEquals(6, itemStockRepository.findStockQuantity(itemId));
+        assertEquals(0, engine.getPending(itemId));
+        assertFalse(engine.getRejected().contains(itemId));
+    }
+
+    private void setStock(int stockQuantity) {
+        jdbcTemplate.update("update item set stock_quantity = ? where item_id = ?", stockQuantity, itemId);
+    }
+}
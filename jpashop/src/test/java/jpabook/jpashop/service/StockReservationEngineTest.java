@@ -0,0 +1,195 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.exception.NotEnoughStockException;
+import jpabook.jpashop.repository.ItemStockRepository;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+//동시성 테스트 하네스
+//  DB 대신 update ... where stock >= ? 조건을 그대로 흉내내는 FakeItemStockRepository 를 사용한다.
+public class StockReservationEngineTest {
+
+    static final int THREADS = 200;
+    static final int ATTEMPTS_PER_THREAD = 50;
+
+    @Test
+    public void 동시_예약_초과판매_없음() throws Exception {
+        int initialStock = 1000;
+        FakeItemStockRepository repository = new FakeItemStockRepository();
+        repository.stocks.put(1L, initialStock);
+        StockReservationEngine engine = new StockReservationEngine(repository);
+
+        AtomicInteger success = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(THREADS);
+        AtomicBoolean running = new AtomicBoolean(true);
+
+        //주문이 몰리는 동안 계속 flush
+        Thread flusher = new Thread(() -> {
+            while (running.get()) {
+                engine.flush();
+            }
+        });
+        flusher.start();
+
+        for (int i = 0; i < THREADS; i++) {
+            executor.submit(() -> {
+                try {
+                    start.await();
+                    for (int j = 0; j < ATTEMPTS_PER_THREAD; j++) {
+                        try {
+                            engine.reserve(1L, 1);
+                            success.incrementAndGet();
+                        } catch (NotEnoughStockException e) {
+                            rejected.incrementAndGet();
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        start.countDown();
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        running.set(false);
+        flusher.join();
+        executor.shutdown();
+        engine.flush();
+
+        assertEquals("재고 수량만큼만 예약되어야 한다.", initialStock, success.get());
+        assertEquals(THREADS * ATTEMPTS_PER_THREAD - initialStock, rejected.get());
+        assertEquals("DB 재고는 0 이어야 한다.", Integer.valueOf(0), repository.stocks.get(1L));
+        assertFalse("DB 가 거절한 반영이 없어야 한다.", repository.rejected.get());
+    }
+
+    @Test
+    public void 동시_예약과_반환() throws Exception {
+        int initialStock = 100;
+        FakeItemStockRepository repository = new FakeItemStockRepository();
+        repository.stocks.put(1L, initialStock);
+        StockReservationEngine engine = new StockReservationEngine(repository);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Runnable> tasks = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            tasks.add(() -> {
+                for (int j = 0; j < ATTEMPTS_PER_THREAD; j++) {
+                    try {
+                        engine.reserve(1L, 2);
+                        engine.release(1L, 2);      //주문 취소
+                    } catch (NotEnoughStockException ignored) {
+                    }
+                }
+            });
+        }
+        tasks.forEach(executor::submit);
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        engine.flush();
+
+        assertEquals("예약 후 모두 반환하면 재고는 그대로여야 한다.", Integer.valueOf(initialStock), repository.stocks.get(1L));
+    }
+
+    @Test(expected = NotEnoughStockException.class)
+    public void 재고_부족() throws Exception {
+        FakeItemStockRepository repository = new FakeItemStockRepository();
+        repository.stocks.put(1L, 3);
+        StockReservationEngine engine = new StockReservationEngine(repository);
+
+        engine.reserve(1L, 4);
+
+        fail("재고 수량 부족 예외가 발생해야 한다.");
+    }
+
+    @Test
+    public void flush_중_다시_로딩해도_초과판매_없음() throws Exception {
+        CountDownLatch flushing = new CountDownLatch(1);
+        CountDownLatch resume = new CountDownLatch(1);
+        FakeItemStockRepository repository = new FakeItemStockRepository() {
+            @Override
+            public synchronized List<Long> decreaseStocks(Map<Long, Integer> deltas) {
+                flushing.countDown();       //차감량을 pending 에서 꺼낸 뒤, DB 반영 전
+                try {
+                    resume.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.decreaseStocks(deltas);
+            }
+        };
+        repository.stocks.put(1L, 10);
+        StockReservationEngine engine = new StockReservationEngine(repository);
+        engine.reserve(1L, 10);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        Future<?> flush = executor.submit(engine::flush);
+        assertTrue(flushing.await(5, TimeUnit.SECONDS));
+
+        //flush 도중에 카운터를 버리고 다시 예약
+        engine.evict(1L);
+        Future<?> reserve = executor.submit(() -> engine.reserve(1L, 1));
+        Thread.sleep(100);
+        resume.countDown();
+        flush.get(5, TimeUnit.SECONDS);
+
+        try {
+            reserve.get(5, TimeUnit.SECONDS);
+            fail("재고 10 을 모두 예약했으므로 재고 수량 부족 예외가 발생해야 한다.");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof NotEnoughStockException);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(Integer.valueOf(0), repository.stocks.get(1L));
+        assertEquals(0, engine.getPending(1L));
+    }
+
+    static class FakeItemStockRepository extends ItemStockRepository {
+
+        final Map<Long, Integer> stocks = new ConcurrentHashMap<>();
+        final AtomicBoolean rejected = new AtomicBoolean();
+
+        FakeItemStockRepository() {
+            super(null);
+        }
+
+        @Override
+        public int findStockQuantity(Long itemId) {
+            return stocks.get(itemId);
+        }
+
+        @Override
+        public synchronized List<Long> decreaseStocks(Map<Long, Integer> deltas) {
+            List<Long> failed = new ArrayList<>();
+            deltas.forEach((itemId, delta) -> {
+                int stock = stocks.get(itemId);
+                if (stock >= delta) {
+                    stocks.put(itemId, stock - delta);
+                } else {
+                    failed.add(itemId);
+                    rejected.set(true);
+                }
+            });
+            return failed;
+        }
+    }
+}
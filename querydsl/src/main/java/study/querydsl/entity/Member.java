@@ -1,10 +1,12 @@
 package study.querydsl.entity;
 
 import lombok.*;
+import study.querydsl.repository.support.MemberSearchCacheListener;
 
 import javax.persistence.*;
 
 @Entity
+@EntityListeners(MemberSearchCacheListener.class)     //회원 검색 캐시 무효화
 @Getter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "username", "age"})
@@ -1,12 +1,14 @@
 package study.querydsl.entity;
 
 import lombok.*;
+import study.querydsl.repository.support.MemberSearchCacheListener;
 
 import javax.persistence.*;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@EntityListeners(MemberSearchCacheListener.class)     //회원 검색 캐시 무효화
 @Getter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id","name"})
@@ -14,6 +14,7 @@ import study.querydsl.dto.QMemberDTO;
 import study.querydsl.dto.QMemberTeamDTO;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.QMember;
+import study.querydsl.repository.support.MemberSearchCache;
 
 import javax.persistence.EntityManager;
 import java.util.List;
@@ -29,6 +30,7 @@ public class MemberJpaRepository {
 
     private final EntityManager em;
     private final JPAQueryFactory queryFactory;
+    private final MemberSearchCache memberSearchCache;
 
     public void save(Member member) {
         em.persist(member);
@@ -96,7 +98,12 @@ public class MemberJpaRepository {
     }
 
     //동적 쿼리와 성능 최적화 조회 - Where 절 파라미터 사용
+    //  같은 검색 조건이면 MemberSearchCache 에 저장된 결과를 사용 (MemberRepository.search 와 같은 결과라 캐시도 같이 쓴다)
     public List<MemberTeamDTO> search(MemberSearchCondition condition) {
+        return memberSearchCache.search(condition, () -> searchQuery(condition));
+    }
+
+    private List<MemberTeamDTO> searchQuery(MemberSearchCondition condition) {
         return queryFactory
                 .select(new QMemberTeamDTO(
                         member.id,
@@ -15,6 +15,7 @@ import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDTO;
 import study.querydsl.dto.QMemberTeamDTO;
 import study.querydsl.entity.Member;
+import study.querydsl.repository.support.MemberSearchCache;
 
 import javax.persistence.EntityManager;
 import java.util.List;
@@ -28,14 +29,21 @@ import static study.querydsl.entity.QTeam.team;
 public class MemberRepositoryImpl extends QuerydslRepositorySupport implements MemberRepositoryCustom {
 
     private final JPAQueryFactory queryFactory;
+    private final MemberSearchCache memberSearchCache;
 
-    public MemberRepositoryImpl(EntityManager em) {
+    public MemberRepositoryImpl(EntityManager em, MemberSearchCache memberSearchCache) {
         super(Member.class);
         queryFactory = new JPAQueryFactory(em);
+        this.memberSearchCache = memberSearchCache;
     }
 
+    //같은 검색 조건이면 MemberSearchCache 에 저장된 결과를 사용 (searchPageSimple, searchPageComplex 도 같음)
     @Override
     public List<MemberTeamDTO> search(MemberSearchCondition condition) {
+        return memberSearchCache.search(condition, () -> searchQuery(condition));
+    }
+
+    private List<MemberTeamDTO> searchQuery(MemberSearchCondition condition) {
        /* return select(new QMemberTeamDTO(
                 member.id,
                 member.username,
@@ -75,6 +83,10 @@ public class MemberRepositoryImpl extends QuerydslRepositorySupport implements M
     //  fetchResult() 는 카운트 쿼리 실행시 필요없는 order by 는 제거한다.
     @Override
     public Page<MemberTeamDTO> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
+        return memberSearchCache.searchPage(condition, pageable, () -> searchPageSimpleQuery(condition, pageable));
+    }
+
+    private Page<MemberTeamDTO> searchPageSimpleQuery(MemberSearchCondition condition, Pageable pageable) {
         QueryResults<MemberTeamDTO> results =
                 select(new QMemberTeamDTO(
                         member.id,
@@ -126,6 +138,10 @@ public class MemberRepositoryImpl extends QuerydslRepositorySupport implements M
     //  코드를 리펙토링해서 내용 쿼리와 카운트 쿼리를 읽기 좋게 분리하면 좋다.
     @Override
     public Page<MemberTeamDTO> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
+        return memberSearchCache.searchPage(condition, pageable, () -> searchPageComplexQuery(condition, pageable));
+    }
+
+    private Page<MemberTeamDTO> searchPageComplexQuery(MemberSearchCondition condition, Pageable pageable) {
         List<MemberTeamDTO> content = queryFactory
                 .select(new QMemberTeamDTO(
                         member.id,
@@ -4,12 +4,15 @@ import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQuery;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Repository;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.entity.Member;
+import study.querydsl.repository.support.CountStrategy;
 import study.querydsl.repository.support.Querydsl4RepositorySupport;
 
+import java.time.Duration;
 import java.util.List;
 
 import static org.springframework.util.StringUtils.hasText;
@@ -19,6 +22,11 @@ import static study.querydsl.entity.QTeam.team;
 @Repository
 public class MemberTestRepository extends Querydsl4RepositorySupport {
 
+    //검색 조건별 카운트를 30초 동안 재사용 (필드로 두어야 캐시가 유지된다.)
+    private final CountStrategy cachedCount = CountStrategy.cached(Duration.ofSeconds(30), 1000);
+    //조건 없는 전체 목록은 10만 건 이상이면 DB 통계 추정값 사용
+    private final CountStrategy estimatedCount = CountStrategy.estimated(100_000);
+
     protected MemberTestRepository() {
         super(Member.class);
     }
@@ -56,6 +64,37 @@ public class MemberTestRepository extends Querydsl4RepositorySupport {
         );
     }
 
+    //같은 조건으로 페이지를 넘기는 목록 화면: 카운트는 캐시
+    public Page<Member> applyPaginationCachedCount(MemberSearchCondition condition, Pageable pageable) {
+        return applyPagination(pageable, query ->
+                query.selectFrom(member)
+                        .leftJoin(member.team, team)
+                        .where(usernameEq(condition.getUsername()),
+                                teamNameEq(condition.getTeamName()),
+                                ageGoe(condition.getAgeGoe()),
+                                ageLoe(condition.getAgeLoe())
+                        ), cachedCount
+        );
+    }
+
+    //조건 없는 전체 회원 목록: 카운트는 추정값
+    public Page<Member> applyPaginationEstimatedCount(Pageable pageable) {
+        return applyPagination(pageable, query -> query.selectFrom(member), estimatedCount);
+    }
+
+    //더보기(무한 스크롤): 카운트 없이 다음 페이지 유무만
+    public Slice<Member> applySlicing(MemberSearchCondition condition, Pageable pageable) {
+        return applySlicing(pageable, query ->
+                query.selectFrom(member)
+                        .leftJoin(member.team, team)
+                        .where(usernameEq(condition.getUsername()),
+                                teamNameEq(condition.getTeamName()),
+                                ageGoe(condition.getAgeGoe()),
+                                ageLoe(condition.getAgeLoe())
+                        )
+        );
+    }
+
     public Page<Member> applyPagination2(MemberSearchCondition condition, Pageable pageable) {
         return applyPagination(pageable,
                 contentQuery -> contentQuery
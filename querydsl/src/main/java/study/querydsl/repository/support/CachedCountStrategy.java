@@ -0,0 +1,49 @@
+package study.querydsl.repository.support;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.jpa.impl.JPAQuery;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+import java.time.Duration;
+
+//카운트 결과를 검색 조건별로 ttl 동안 재사용
+//  key: from, join, where 절 (Querydsl 표현식은 파라미터 값까지 문자열로 표현된다.)
+//  -> 같은 조건의 2, 3, ... 페이지는 카운트 쿼리를 다시 실행하지 않는다.
+//  ttl 동안은 데이터가 바뀌어도 이전 카운트가 보일 수 있다. (정확한 값이 꼭 필요하지 않은 목록 화면용)
+//  쓰기 트랜잭션 안에서는 캐시를 거치지 않는다. (MemberSearchCache 와 같은 기준)
+//      미커밋 변경이 반영된 카운트가 다른 요청에 보이거나, 방금 바꾼 데이터가 캐시된 카운트에 가려지지 않도록
+class CachedCountStrategy implements CountStrategy {
+
+    private final CountStrategy delegate;
+    private final Cache<String, Long> cache;
+
+    CachedCountStrategy(CountStrategy delegate, Duration ttl, long maximumSize) {
+        this.delegate = delegate;
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maximumSize)
+                .build();
+    }
+
+    @Override
+    public long count(JPAQuery<?> countQuery, EntityManager entityManager) {
+        if (!cacheable()) {
+            return delegate.count(countQuery, entityManager);
+        }
+        return cache.get(key(countQuery.getMetadata()), key -> delegate.count(countQuery, entityManager));
+    }
+
+    private static boolean cacheable() {
+        return !TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    private static String key(QueryMetadata metadata) {
+        return metadata.getJoins() + " where " + metadata.getWhere()
+                + " group by " + metadata.getGroupBy() + " having " + metadata.getHaving()
+                + (metadata.isDistinct() ? " distinct" : "");
+    }
+}
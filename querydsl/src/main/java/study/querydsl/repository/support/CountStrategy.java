@@ -0,0 +1,31 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.jpa.impl.JPAQuery;
+
+import javax.persistence.EntityManager;
+import java.time.Duration;
+
+//Querydsl4RepositorySupport.applyPagination 의 전체 카운트 조회 방법 (쿼리마다 골라서 사용)
+//  exact()                      : count(*) 쿼리 실행
+//  cached(ttl, maximumSize)     : exact 결과를 검색 조건(from, join, where)별로 ttl 동안 재사용
+//  estimated(exactBelow)        : 조건이 없는 전체 목록이면 DB 통계의 테이블 row 수 추정값 사용
+//  전체 카운트 자체가 필요 없으면 카운트 대신 limit + 1 로 다음 페이지 유무만 확인하는 applySlicing 사용
+//  countQuery 에는 페이징(offset, limit)과 정렬이 들어 있을 수 있다. 구현체가 무시해야 한다.
+@FunctionalInterface
+public interface CountStrategy {
+
+    long count(JPAQuery<?> countQuery, EntityManager entityManager);
+
+    static CountStrategy exact() {
+        return ExactCountStrategy.INSTANCE;
+    }
+
+    //repository 필드로 만들어 두고 재사용해야 캐시가 유지된다.
+    static CountStrategy cached(Duration ttl, long maximumSize) {
+        return new CachedCountStrategy(exact(), ttl, maximumSize);
+    }
+
+    static CountStrategy estimated(long exactBelow) {
+        return new EstimatedCountStrategy(exact(), exactBelow);
+    }
+}
@@ -0,0 +1,68 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.jpa.impl.JPAQuery;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.dialect.MySQLDialect;
+import org.hibernate.dialect.PostgreSQL81Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+//DB 통계의 테이블 row 수 추정값을 전체 카운트로 사용
+//  큰 테이블에서 count(*) 는 테이블 전체를 읽어야 하지만, 추정값은 DB 가 관리하는 통계 정보 1건만 읽는다.
+//  테이블 전체 row 수이므로 조건(where)이 없고 join 도 없는 조회에만 사용하고, 나머지는 exact 로 조회한다.
+//  추정값이 exactBelow 보다 작으면 exact 로 조회 (작은 테이블은 count(*) 도 싸고, 통계가 오래됐을 수 있다.)
+//  지원 DB: H2, PostgreSQL, MySQL (그 외는 exact)
+class EstimatedCountStrategy implements CountStrategy {
+
+    private final CountStrategy fallback;
+    private final long exactBelow;
+
+    EstimatedCountStrategy(CountStrategy fallback, long exactBelow) {
+        this.fallback = fallback;
+        this.exactBelow = exactBelow;
+    }
+
+    @Override
+    public long count(JPAQuery<?> countQuery, EntityManager entityManager) {
+        QueryMetadata metadata = countQuery.getMetadata();
+        if (metadata.getWhere() != null || metadata.getJoins().size() != 1
+                || !metadata.getGroupBy().isEmpty() || metadata.isDistinct()) {
+            return fallback.count(countQuery, entityManager);
+        }
+
+        SessionFactoryImplementor sessionFactory = entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class);
+        String sql = estimateSql(sessionFactory.getJdbcServices().getDialect());
+        if (sql == null) {
+            return fallback.count(countQuery, entityManager);
+        }
+        String tableName = ((AbstractEntityPersister) sessionFactory.getMetamodel()
+                .entityPersister(metadata.getJoins().get(0).getTarget().getType())).getTableName();
+
+        List<?> result = entityManager.createNativeQuery(sql)
+                .setParameter(1, tableName)
+                .getResultList();
+        long estimate = result.isEmpty() || result.get(0) == null ? -1 : ((Number) result.get(0)).longValue();
+        if (estimate < exactBelow) {
+            return fallback.count(countQuery, entityManager);
+        }
+        return estimate;
+    }
+
+    private static String estimateSql(Dialect dialect) {
+        if (dialect instanceof H2Dialect) {
+            return "select row_count_estimate from information_schema.tables where upper(table_name) = upper(?1)";
+        }
+        if (dialect instanceof PostgreSQL81Dialect) {
+            return "select cast(reltuples as bigint) from pg_class where relname = lower(?1) and relkind = 'r'";
+        }
+        if (dialect instanceof MySQLDialect) {
+            return "select table_rows from information_schema.tables where table_schema = database() and table_name = ?1";
+        }
+        return null;
+    }
+}
@@ -0,0 +1,31 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.QueryModifiers;
+import com.querydsl.core.types.dsl.Wildcard;
+import com.querydsl.jpa.impl.JPAQuery;
+
+import javax.persistence.EntityManager;
+
+//정확한 전체 카운트
+//  deprecated 된 fetchCount() 대신 원래 쿼리를 복사해서 정렬, 페이징을 빼고 select count(*) 로 바꿔서 실행
+//  group by, distinct 가 있으면 count(*) 로 바꿀 수 없으므로 기존 fetchCount() 를 사용
+class ExactCountStrategy implements CountStrategy {
+
+    static final ExactCountStrategy INSTANCE = new ExactCountStrategy();
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public long count(JPAQuery<?> countQuery, EntityManager entityManager) {
+        QueryMetadata metadata = countQuery.getMetadata();
+        if (!metadata.getGroupBy().isEmpty() || metadata.isDistinct()) {
+            return countQuery.fetchCount();
+        }
+
+        JPAQuery<?> query = countQuery.clone();
+        query.getMetadata().clearOrderBy();
+        query.getMetadata().setModifiers(QueryModifiers.EMPTY);
+        Long count = query.select(Wildcard.count).fetchOne();
+        return count == null ? 0 : count;
+    }
+}
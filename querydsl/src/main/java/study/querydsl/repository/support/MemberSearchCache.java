@@ -0,0 +1,122 @@
+package study.querydsl.repository.support;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDTO;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.springframework.util.StringUtils.hasText;
+
+//회원 검색 결과 캐시 (member left join team 검색)
+//  같은 검색 조건이 반복해서 들어오면 같은 쿼리를 다시 실행하지 않는다.
+//  key: 정규화한 검색 조건 + Pageable
+//      -username, teamName 은 where 절과 같은 기준으로 빈 문자열이면 null (조건 없음)
+//      -목록 검색(search)은 Pageable 이 null
+//  만료: 마지막 저장 후 ttl, 최대 maximum-size 개 (넘으면 Caffeine 이 적게 쓰인 것부터 제거)
+//  무효화: Member, Team 엔티티 리스너(MemberSearchCacheListener)가 변경을 감지하면 전체 삭제
+//      -벌크 연산(update, delete 쿼리)은 엔티티 리스너를 거치지 않으므로 직접 invalidateAll() 을 호출해야 한다.
+//  쓰기 트랜잭션 안에서는 캐시를 쓰지 않는다. (아직 커밋 안 된 데이터가 캐시에 들어가거나, 방금 바꾼 데이터가 안 보이는 문제 방지)
+//  메트릭: cache.gets{cache=memberSearch, result=hit|miss}, cache.evictions, cache.size ... (/actuator/metrics)
+//  주의: 캐시된 DTO 는 여러 요청이 함께 쓰므로 수정하면 안된다.
+@Component
+public class MemberSearchCache {
+
+    public static final String NAME = "memberSearch";
+
+    private final Cache<Key, Object> cache;
+
+    public MemberSearchCache(MeterRegistry meterRegistry,
+                             @Value("${querydsl.member-search-cache.ttl:30s}") Duration ttl,
+                             @Value("${querydsl.member-search-cache.maximum-size:10000}") long maximumSize) {
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, NAME);
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<MemberTeamDTO> search(MemberSearchCondition condition, Supplier<List<MemberTeamDTO>> query) {
+        if (!cacheable()) {
+            return query.get();
+        }
+        return (List<MemberTeamDTO>) cache.get(Key.of(condition, null),
+                key -> Collections.unmodifiableList(query.get()));
+    }
+
+    @SuppressWarnings("unchecked")
+    public Page<MemberTeamDTO> searchPage(MemberSearchCondition condition, Pageable pageable, Supplier<Page<MemberTeamDTO>> query) {
+        if (!cacheable()) {
+            return query.get();
+        }
+        return (Page<MemberTeamDTO>) cache.get(Key.of(condition, pageable), key -> {
+            Page<MemberTeamDTO> page = query.get();
+            return new PageImpl<>(Collections.unmodifiableList(page.getContent()), page.getPageable(), page.getTotalElements());
+        });
+    }
+
+    //지금 바로 비우고, 트랜잭션 안이면 커밋 후에 한번 더 비운다.
+    //  (커밋 전에 다른 트랜잭션이 이전 데이터로 다시 채울 수 있으므로)
+    //  한 트랜잭션에서 엔티티를 여러 개 바꿔도 커밋 후 삭제는 한 번만 등록한다.
+    public void invalidateAll() {
+        cache.invalidateAll();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(this)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(this, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                cache.invalidateAll();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResource(MemberSearchCache.this);
+            }
+        });
+    }
+
+    public double hitRate() {
+        return cache.stats().hitRate();
+    }
+
+    private boolean cacheable() {
+        return !TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    @lombok.Value
+    static class Key {
+        String username;
+        String teamName;
+        Integer ageGoe;
+        Integer ageLoe;
+        Pageable pageable;
+
+        static Key of(MemberSearchCondition condition, Pageable pageable) {
+            return new Key(
+                    hasText(condition.getUsername()) ? condition.getUsername() : null,
+                    hasText(condition.getTeamName()) ? condition.getTeamName() : null,
+                    condition.getAgeGoe(),
+                    condition.getAgeLoe(),
+                    pageable);
+        }
+    }
+}
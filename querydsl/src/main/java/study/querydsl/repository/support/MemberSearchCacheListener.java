@@ -0,0 +1,23 @@
+package study.querydsl.repository.support;
+
+import lombok.RequiredArgsConstructor;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+//Member, Team 엔티티 리스너: 회원 검색 캐시 무효화
+//  스프링 부트는 Hibernate 가 엔티티 리스너를 스프링 빈으로 생성하게 설정하므로 MemberSearchCache 를 주입받을 수 있다.
+//  검색 결과에는 회원 이름, 나이, 팀, 팀 이름이 들어가므로 어느 쪽이 바뀌어도 전체를 비운다.
+@RequiredArgsConstructor
+public class MemberSearchCacheListener {
+
+    private final MemberSearchCache memberSearchCache;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void invalidate(Object entity) {
+        memberSearchCache.invalidateAll();
+    }
+}
@@ -11,6 +11,8 @@ import com.querydsl.jpa.impl.JPAQueryFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.jpa.repository.support.JpaEntityInformation;
 import org.springframework.data.jpa.repository.support.JpaEntityInformationSupport;
 import org.springframework.data.jpa.repository.support.Querydsl;
@@ -20,6 +22,7 @@ import org.springframework.stereotype.Repository;
 
 import javax.annotation.PostConstruct;
 import javax.persistence.EntityManager;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.function.Function;
 
@@ -80,20 +83,61 @@ public abstract class Querydsl4RepositorySupport {
         return getQueryFactory().selectFrom(from);
     }
 
+    //전체 카운트는 exact (CountStrategy 참고)
     protected <T> Page<T> applyPagination(Pageable pageable, Function<JPAQueryFactory, JPAQuery> contentQuery) {
+        return applyPagination(pageable, contentQuery, CountStrategy.exact());
+    }
+
+    protected <T> Page<T> applyPagination(Pageable pageable, Function<JPAQueryFactory, JPAQuery> contentQuery,
+                                          Function<JPAQueryFactory, JPAQuery> countQuery) {
+        return applyPagination(pageable, contentQuery, countQuery, CountStrategy.exact());
+    }
+
+    //전체 카운트 조회 방법을 쿼리마다 선택
+    protected <T> Page<T> applyPagination(Pageable pageable, Function<JPAQueryFactory, JPAQuery> contentQuery,
+                                          CountStrategy countStrategy) {
         JPAQuery jpaQuery = contentQuery.apply(getQueryFactory());
         List<T> content = getQuerydsl().applyPagination(pageable, jpaQuery).fetch();
 
-        return PageableExecutionUtils.getPage(content, pageable, jpaQuery::fetchCount);
+        return getPage(content, pageable, jpaQuery, countStrategy);
     }
 
     protected <T> Page<T> applyPagination(Pageable pageable, Function<JPAQueryFactory, JPAQuery> contentQuery,
-                                          Function<JPAQueryFactory, JPAQuery> countQuery) {
+                                          Function<JPAQueryFactory, JPAQuery> countQuery, CountStrategy countStrategy) {
         JPAQuery jpaContentQuery = contentQuery.apply(getQueryFactory());
         List<T> content = getQuerydsl().applyPagination(pageable, jpaContentQuery).fetch();
 
         JPAQuery countResult = countQuery.apply(getQueryFactory());
 
-        return PageableExecutionUtils.getPage(content, pageable, countResult::fetchCount);
+        return getPage(content, pageable, countResult, countStrategy);
+    }
+
+    //카운트 없이 limit + 1 건을 조회해서 다음 페이지 유무만 확인 (더보기, 무한 스크롤)
+    protected <T> Slice<T> applySlicing(Pageable pageable, Function<JPAQueryFactory, JPAQuery> contentQuery) {
+        JPAQuery<T> jpaQuery = contentQuery.apply(getQueryFactory());
+        if (pageable.isUnpaged()) {
+            return new SliceImpl<>(jpaQuery.fetch(), pageable, false);
+        }
+
+        getQuerydsl().applySorting(pageable.getSort(), jpaQuery);
+        List<T> content = jpaQuery
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize() + 1)
+                .fetch();
+
+        boolean hasNext = content.size() > pageable.getPageSize();
+        if (hasNext) {
+            content = new ArrayList<>(content.subList(0, pageable.getPageSize()));
+        }
+        return new SliceImpl<>(content, pageable, hasNext);
+    }
+
+    //PageableExecutionUtils 가 카운트가 필요 없는 경우(첫 페이지가 다 안 찼거나 마지막 페이지)는 카운트를 생략한다.
+    //  추정값/캐시값이 현재 페이지까지의 개수보다 작으면 페이지 정보가 맞지 않으므로 그 값으로 보정
+    private <T> Page<T> getPage(List<T> content, Pageable pageable, JPAQuery countQuery, CountStrategy countStrategy) {
+        return PageableExecutionUtils.getPage(content, pageable, () -> {
+            long count = countStrategy.count(countQuery, getEntityManager());
+            return pageable.isPaged() ? Math.max(count, pageable.getOffset() + content.size()) : count;
+        });
     }
 }
@@ -0,0 +1,82 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import javax.transaction.Transactional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class MemberTestRepositoryTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    MemberTestRepository memberTestRepository;
+    @Autowired
+    MemberRepository memberRepository;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        for (int i = 0; i < 100; i++) {
+            em.persist(new Member("member" + i, i, i % 2 == 0 ? teamA : teamB));
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void 카운트_캐시_쓰기_트랜잭션() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        Page<Member> first = memberTestRepository.applyPaginationCachedCount(condition, PageRequest.of(0, 10));
+        assertThat(first.getTotalElements()).isEqualTo(50);
+
+        em.persist(new Member("member100", 100, em.createQuery("select t from Team t where t.name = 'teamA'", Team.class)
+                .getSingleResult()));
+        em.flush();
+
+        Page<Member> second = memberTestRepository.applyPaginationCachedCount(condition, PageRequest.of(1, 10));
+        assertThat(second.getTotalElements()).as("쓰기 트랜잭션에서는 캐시를 거치지 않는다. (캐시 재사용은 CountStrategyTest)").isEqualTo(51);
+        assertThat(second.getContent()).hasSize(10);
+    }
+
+    @Test
+    public void 카운트_추정() {
+        //작은 테이블은 추정값 대신 exact
+        Page<Member> result = memberTestRepository.applyPaginationEstimatedCount(PageRequest.of(0, 10));
+
+        assertThat(result.getTotalElements()).isEqualTo(memberRepository.count());
+        assertThat(result.getContent()).hasSize(10);
+    }
+
+    @Test
+    public void 슬라이스() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(90);
+
+        Slice<Member> first = memberTestRepository.applySlicing(condition, PageRequest.of(0, 6));
+        Slice<Member> last = memberTestRepository.applySlicing(condition, PageRequest.of(1, 6));
+
+        assertThat(first.getContent()).hasSize(6);
+        assertThat(first.hasNext()).isTrue();
+        assertThat(last.getContent()).hasSize(4);
+        assertThat(last.hasNext()).isFalse();
+    }
+}
@@ -0,0 +1,64 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+
+import javax.persistence.EntityManager;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+
+//카운트 전략이 실제로 어떤 경로(캐시, 통계 추정, exact)를 타는지 delegate 호출 횟수로 확인한다.
+@SpringBootTest
+class CountStrategyTest {
+
+    @Autowired EntityManager em;
+    @Autowired PlatformTransactionManager transactionManager;
+
+    @Test
+    public void 캐시는_읽기_전용_트랜잭션에서만() {
+        AtomicInteger calls = new AtomicInteger();
+        CountStrategy cached = new CachedCountStrategy((query, entityManager) -> calls.incrementAndGet(), Duration.ofSeconds(30), 10);
+
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readOnly.executeWithoutResult(status -> {
+            assertThat(cached.count(countQuery(), em)).isEqualTo(1);
+            assertThat(cached.count(countQuery(), em)).as("같은 조건은 재사용").isEqualTo(1);
+        });
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            assertThat(cached.count(countQuery(), em)).as("쓰기 트랜잭션은 캐시를 거치지 않는다.").isEqualTo(2);
+            assertThat(cached.count(countQuery(), em)).isEqualTo(3);
+        });
+        assertThat(cached.count(countQuery(), em)).as("트랜잭션 밖은 캐시 사용").isEqualTo(1);
+    }
+
+    @Test
+    public void 추정_통계_조회() {
+        AtomicInteger fallback = new AtomicInteger();
+        //exactBelow 를 0 으로 낮춰서 작은 테이블도 통계 추정값을 사용하게 한다.
+        CountStrategy estimated = new EstimatedCountStrategy((query, entityManager) -> fallback.incrementAndGet() * -1L, 0);
+
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readOnly.executeWithoutResult(status -> {
+            assertThat(estimated.count(countQuery(), em)).as("통계 추정값").isGreaterThanOrEqualTo(0);
+            assertThat(fallback.get()).as("통계에서 member 테이블을 찾았으면 exact 로 넘기지 않는다.").isZero();
+
+            estimated.count(countQuery().where(member.age.goe(10)), em);
+            assertThat(fallback.get()).as("조건이 있으면 exact").isEqualTo(1);
+        });
+    }
+
+    private JPAQuery<Member> countQuery() {
+        return new JPAQuery<>(em).select(member).from(member);
+    }
+}
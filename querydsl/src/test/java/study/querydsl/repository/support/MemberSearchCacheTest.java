@@ -0,0 +1,89 @@
+package study.querydsl.repository.support;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDTO;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//캐시는 쓰기 트랜잭션 밖에서만 동작하므로 @Transactional(롤백) 없이 실제로 커밋하고, 끝나면 지운다.
+@SpringBootTest
+class MemberSearchCacheTest {
+
+    @Autowired EntityManager em;
+    @Autowired TransactionTemplate transactionTemplate;
+    @Autowired MemberRepository memberRepository;
+    @Autowired MemberSearchCache memberSearchCache;
+
+    Long memberId;
+    Long teamAId;
+    Long teamBId;
+
+    @BeforeEach
+    public void before() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Team teamA = new Team("cacheTeamA");
+            Team teamB = new Team("cacheTeamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            Member member = new Member("cacheMember", 10, teamA);
+            em.persist(member);
+            memberId = member.getId();
+            teamAId = teamA.getId();
+            teamBId = teamB.getId();
+        });
+    }
+
+    @AfterEach
+    public void after() {
+        transactionTemplate.executeWithoutResult(status -> {
+            em.remove(em.find(Member.class, memberId));
+            em.remove(em.find(Team.class, teamAId));
+            em.remove(em.find(Team.class, teamBId));
+        });
+    }
+
+    @Test
+    public void 같은_조건은_캐시에서_조회() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("cacheMember");
+        MemberSearchCondition sameCondition = new MemberSearchCondition();
+        sameCondition.setUsername("cacheMember");
+        sameCondition.setTeamName("");      //빈 문자열은 조건 없음과 같은 key
+
+        List<MemberTeamDTO> first = memberRepository.search(condition);
+        List<MemberTeamDTO> second = memberRepository.search(sameCondition);
+
+        assertThat(second).isSameAs(first);
+        assertThat(memberSearchCache.hitRate()).isGreaterThan(0);
+
+        Page<MemberTeamDTO> page = memberRepository.searchPageComplex(condition, PageRequest.of(0, 3));
+        assertThat(memberRepository.searchPageComplex(condition, PageRequest.of(0, 3))).isSameAs(page);
+        assertThat(memberRepository.searchPageComplex(condition, PageRequest.of(1, 3))).isNotSameAs(page);
+    }
+
+    @Test
+    public void 엔티티_변경시_무효화() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("cacheMember");
+        assertThat(memberRepository.search(condition)).extracting("teamName").containsExactly("cacheTeamA");
+
+        transactionTemplate.executeWithoutResult(status ->
+                em.find(Member.class, memberId).changeTeam(em.find(Team.class, teamBId)));
+
+        assertThat(memberRepository.search(condition)).extracting("teamName").containsExactly("cacheTeamB");
+    }
+}